@@ -0,0 +1,484 @@
+package cn.bebullish.common.toolkit.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * <h3>Generates the JSON codecs of {@code @JSONGenerated} classes</h3>
+ *
+ * <p>Writes a {@code JSONGeneratedModule} per class holding a serializer and a deserializer that access the properties
+ * through their getters and setters, and lists the modules as services so {@code JSONUtils} registers them. Property
+ * names follow Jackson's defaults for the same class and so does the order, except among the properties whose getter
+ * is not named after the field, which keep the field order. Values other than strings, numbers and booleans are
+ * handed to the mapper, so dates and times keep the formats configured in {@code JSONUtils}</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+@SupportedAnnotationTypes(JSONCodecProcessor.ANNOTATION)
+public class JSONCodecProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "cn.bebullish.common.toolkit.utils.JSONGenerated";
+    private static final String MODULE_TYPE = "cn.bebullish.common.toolkit.utils.JSONGeneratedModule";
+    private static final String MODULE_SUFFIX = "_JSONModule";
+    private static final String JACKSON_ANNOTATIONS = "com.fasterxml.jackson.";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    private final Set<String> modules = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        if (round.processingOver()) {
+            writeServices();
+            return false;
+        }
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) return false;
+        for (Element element : round.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@JSONGenerated only applies to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<Property> properties = properties(type);
+            if (properties != null) generate(type, properties);
+        }
+        return true;
+    }
+
+    /**
+     * @return the properties in serialization order, {@code null} if the class is not supported
+     */
+    private List<Property> properties(TypeElement type) {
+        boolean supported = true;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            supported = error(type, "@JSONGenerated class must be concrete and not private");
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL && !modifiers.contains(Modifier.STATIC)) {
+            supported = error(type, "@JSONGenerated nested class must be static");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            supported = error(type, "@JSONGenerated class must not be generic");
+        }
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED && !"java.lang.Object".equals(qualifiedName(superclass))) {
+            supported = error(type, "@JSONGenerated class must not extend another class");
+        }
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (annotationName(annotation).startsWith(JACKSON_ANNOTATIONS)) {
+                supported = error(type, "@JSONGenerated does not support @" + annotation.getAnnotationType().asElement().getSimpleName() + " on the class");
+            }
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        if (!constructors.isEmpty() && constructors.stream().noneMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE))) {
+            supported = error(type, "@JSONGenerated class needs a non-private no-argument constructor");
+        }
+
+        List<Property> named = new ArrayList<>();
+        List<Property> derived = new ArrayList<>();
+        List<Property> renamed = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> fieldModifiers = field.getModifiers();
+            if (fieldModifiers.contains(Modifier.STATIC) || fieldModifiers.contains(Modifier.TRANSIENT)) continue;
+            String explicitName = null;
+            boolean ignored = false;
+            for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                String name = annotationName(annotation);
+                if (JSON_IGNORE.equals(name)) {
+                    ignored = !Boolean.FALSE.equals(annotationValue(annotation));
+                } else if (JSON_PROPERTY.equals(name)) {
+                    Object value = annotationValue(annotation);
+                    explicitName = value == null || "".equals(value) ? field.getSimpleName().toString() : value.toString();
+                } else if (name.startsWith(JACKSON_ANNOTATIONS)) {
+                    supported = error(field, "@JSONGenerated does not support @" + annotation.getAnnotationType().asElement().getSimpleName());
+                }
+            }
+            if (ignored) continue;
+            if (fieldModifiers.contains(Modifier.FINAL)) {
+                supported = error(field, "@JSONGenerated does not support final fields");
+                continue;
+            }
+            String typeName = sourceName(field.asType());
+            if (typeName == null) {
+                supported = error(field, "@JSONGenerated does not support the type " + field.asType());
+                continue;
+            }
+            Property property = new Property(field, typeName, explicitName);
+            // Jackson keeps the position of the field when the property is named after it, the names derived from
+            // other getters follow, in an order reflection leaves unspecified, and explicit renames come last
+            if (property.name.equals(property.field)) named.add(property);
+            else if (explicitName == null) derived.add(property);
+            else renamed.add(property);
+        }
+        named.addAll(derived);
+        named.addAll(renamed);
+        return supported ? named : null;
+    }
+
+    private void generate(TypeElement type, List<Property> properties) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String bean = type.getQualifiedName().toString();
+        String module = moduleName(type);
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) out.append("package ").append(packageName).append(";\n\n");
+        out.append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+                .append("import com.fasterxml.jackson.core.JsonParser;\n")
+                .append("import com.fasterxml.jackson.core.JsonToken;\n")
+                .append("import com.fasterxml.jackson.core.SerializableString;\n")
+                .append("import com.fasterxml.jackson.core.io.SerializedString;\n")
+                .append("import com.fasterxml.jackson.core.type.TypeReference;\n")
+                .append("import com.fasterxml.jackson.core.type.WritableTypeId;\n")
+                .append("import com.fasterxml.jackson.databind.DeserializationContext;\n")
+                .append("import com.fasterxml.jackson.databind.JsonDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.JsonMappingException;\n")
+                .append("import com.fasterxml.jackson.databind.SerializerProvider;\n")
+                .append("import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.deser.std.StdDeserializer;\n")
+                .append("import com.fasterxml.jackson.databind.jsontype.TypeSerializer;\n")
+                .append("import com.fasterxml.jackson.databind.ser.std.StdSerializer;\n\n")
+                .append("import java.io.IOException;\n\n")
+                .append("import ").append(MODULE_TYPE).append(";\n\n");
+        out.append("/**\n * Generated by ").append(JSONCodecProcessor.class.getSimpleName()).append(" for {@link ").append(bean).append("}, do not edit\n */\n");
+        out.append("public final class ").append(module).append(" extends JSONGeneratedModule {\n\n");
+        out.append("    private static final long serialVersionUID = 1L;\n\n");
+        out.append("    public ").append(module).append("() {\n");
+        out.append("        super(\"").append(module).append("\");\n");
+        out.append("        addSerializer(").append(bean).append(".class, new Serializer());\n");
+        out.append("        addDeserializer(").append(bean).append(".class, new Deserializer());\n");
+        out.append("    }\n\n");
+
+        // serializer
+        out.append("    static final class Serializer extends StdSerializer<").append(bean).append("> {\n\n");
+        out.append("        private static final long serialVersionUID = 1L;\n");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append("        private static final SerializableString NAME_").append(i).append(" = new SerializedString(\"").append(escape(properties.get(i).name)).append("\");\n");
+        }
+        out.append("\n        Serializer() {\n            super(").append(bean).append(".class);\n        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public void serialize(").append(bean).append(" value, JsonGenerator gen, SerializerProvider provider) throws IOException {\n");
+        out.append("            gen.writeStartObject(value);\n");
+        out.append("            writeProperties(value, gen, provider);\n");
+        out.append("            gen.writeEndObject();\n");
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public void serializeWithType(").append(bean).append(" value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {\n");
+        out.append("            WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(value, JsonToken.START_OBJECT));\n");
+        out.append("            writeProperties(value, gen, provider);\n");
+        out.append("            typeSer.writeTypeSuffix(gen, typeId);\n");
+        out.append("        }\n\n");
+        out.append("        private static void writeProperties(").append(bean).append(" value, JsonGenerator gen, SerializerProvider provider) throws IOException {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            writeProperty(out, properties.get(i), i);
+        }
+        out.append("        }\n    }\n\n");
+
+        // deserializer
+        out.append("    static final class Deserializer extends StdDeserializer<").append(bean).append("> implements ResolvableDeserializer {\n\n");
+        out.append("        private static final long serialVersionUID = 1L;\n\n");
+        for (int i = 0; i < properties.size(); i++) {
+            out.append("        private JsonDeserializer<Object> deserializer").append(i).append(";\n");
+        }
+        out.append("\n        Deserializer() {\n            super(").append(bean).append(".class);\n        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public void resolve(DeserializationContext ctxt) throws JsonMappingException {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            out.append("            deserializer").append(i).append(" = ctxt.findRootValueDeserializer(");
+            if (property.typeName.indexOf('<') >= 0) {
+                out.append("ctxt.getTypeFactory().constructType(new TypeReference<").append(property.typeName).append(">() {\n            })");
+            } else {
+                out.append("ctxt.constructType(").append(property.typeName).append(".class)");
+            }
+            out.append(");\n");
+        }
+        out.append("        }\n\n");
+        out.append("        @Override\n        public boolean isCachable() {\n            return true;\n        }\n\n");
+        out.append("        @Override\n");
+        out.append("        public ").append(bean).append(" deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {\n");
+        out.append("            return deserialize(p, ctxt, new ").append(bean).append("());\n");
+        out.append("        }\n\n");
+        out.append("        @Override\n");
+        out.append("        @SuppressWarnings(\"unchecked\")\n");
+        out.append("        public ").append(bean).append(" deserialize(JsonParser p, DeserializationContext ctxt, ").append(bean).append(" bean) throws IOException {\n");
+        out.append("            JsonToken token = p.currentToken();\n");
+        out.append("            if (token == JsonToken.START_OBJECT) {\n");
+        out.append("                token = p.nextToken();\n");
+        out.append("            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {\n");
+        out.append("                return (").append(bean).append(") ctxt.handleUnexpectedToken(").append(bean).append(".class, p);\n");
+        out.append("            }\n");
+        out.append("            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {\n");
+        out.append("                String name = p.getCurrentName();\n");
+        out.append("                token = p.nextToken();\n");
+        out.append("                switch (name) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            readProperty(out, properties.get(i), i);
+        }
+        out.append("                    default:\n");
+        out.append("                        ctxt.handleUnknownProperty(p, this, bean, name);\n");
+        out.append("                }\n");
+        out.append("            }\n");
+        out.append("            return bean;\n");
+        out.append("        }\n    }\n\n}\n");
+
+        String qualifiedModule = packageName.isEmpty() ? module : packageName + "." + module;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedModule, type).openWriter()) {
+            writer.write(out.toString());
+        } catch (IOException e) {
+            error(type, "@JSONGenerated codec could not be written: " + e.getMessage());
+            return;
+        }
+        modules.add(qualifiedModule);
+    }
+
+    private void writeProperty(StringBuilder out, Property property, int index) {
+        String get = "value." + property.getter + "()";
+        out.append("            gen.writeFieldName(NAME_").append(index).append(");\n");
+        String writeMethod = property.writeMethod();
+        if (writeMethod == null) {
+            out.append("            provider.defaultSerializeValue(").append(get).append(", gen);\n");
+        } else if (property.primitive) {
+            out.append("            gen.").append(writeMethod).append("(").append(get).append(");\n");
+        } else {
+            String local = "value" + index;
+            out.append("            ").append(property.typeName).append(" ").append(local).append(" = ").append(get).append(";\n");
+            out.append("            if (").append(local).append(" == null) provider.defaultSerializeNull(gen);\n");
+            out.append("            else gen.").append(writeMethod).append("(").append(local).append(");\n");
+        }
+    }
+
+    private void readProperty(StringBuilder out, Property property, int index) {
+        String deserializer = "deserializer" + index;
+        String general = "(" + property.boxedName + ") (token == JsonToken.VALUE_NULL ? " + deserializer + ".getNullValue(ctxt) : " + deserializer + ".deserialize(p, ctxt))";
+        String fastToken = property.fastToken();
+        String value = fastToken == null ? general : fastToken + " ? " + property.fastRead() + " : " + general;
+        out.append("                    case \"").append(escape(property.name)).append("\":\n");
+        out.append("                        bean.").append(property.setter).append("(").append(value).append(");\n");
+        out.append("                        break;\n");
+    }
+
+    private void writeServices() {
+        if (modules.isEmpty()) return;
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + MODULE_TYPE);
+            try (Writer writer = file.openWriter()) {
+                for (String module : modules) {
+                    writer.write(module);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@JSONGenerated services could not be written: " + e.getMessage());
+        }
+    }
+
+    private String moduleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append(MODULE_SUFFIX).toString();
+    }
+
+    /**
+     * Source form of the type without type annotations, {@code null} for type variables and other unsupported kinds
+     */
+    private String sourceName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) return type.getKind().name().toLowerCase();
+        switch (type.getKind()) {
+            case ARRAY:
+                String component = sourceName(((ArrayType) type).getComponentType());
+                return component == null ? null : component + "[]";
+            case DECLARED:
+                StringBuilder name = new StringBuilder(qualifiedName(type));
+                List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+                if (!arguments.isEmpty()) {
+                    name.append('<');
+                    for (int i = 0; i < arguments.size(); i++) {
+                        String argument = sourceName(arguments.get(i));
+                        if (argument == null) return null;
+                        name.append(i == 0 ? "" : ", ").append(argument);
+                    }
+                    name.append('>');
+                }
+                return name.toString();
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null) {
+                    String bound = sourceName(wildcard.getExtendsBound());
+                    return bound == null ? null : "? extends " + bound;
+                }
+                if (wildcard.getSuperBound() != null) {
+                    String bound = sourceName(wildcard.getSuperBound());
+                    return bound == null ? null : "? super " + bound;
+                }
+                return "?";
+            default:
+                return null;
+        }
+    }
+
+    private static String qualifiedName(TypeMirror type) {
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+    }
+
+    private static String annotationName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static Object annotationValue(AnnotationMirror annotation) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    /**
+     * A field with the getter and setter Lombok generates for it, named the way Jackson names the getter's property
+     */
+    private final class Property {
+        private final String field;
+        private final String name;
+        private final String typeName;
+        private final String boxedName;
+        private final String getter;
+        private final String setter;
+        private final boolean primitive;
+
+        Property(VariableElement element, String typeName, String explicitName) {
+            TypeMirror type = element.asType();
+            this.field = element.getSimpleName().toString();
+            this.typeName = typeName;
+            this.primitive = type.getKind().isPrimitive();
+            this.boxedName = primitive
+                    ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString()
+                    : typeName;
+            String base;
+            if (type.getKind() == TypeKind.BOOLEAN && field.length() > 2 && field.startsWith("is") && Character.isUpperCase(field.charAt(2))) {
+                base = field.substring(2);
+                this.getter = field;
+            } else {
+                base = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+                this.getter = (type.getKind() == TypeKind.BOOLEAN ? "is" : "get") + base;
+            }
+            this.setter = "set" + base;
+            this.name = explicitName != null ? explicitName : mangle(base);
+        }
+
+        /**
+         * Jackson's default naming of a getter, the leading upper case letters of what follows get or is are lowered
+         */
+        private String mangle(String base) {
+            StringBuilder name = new StringBuilder(base);
+            for (int i = 0; i < name.length() && Character.isUpperCase(name.charAt(i)); i++) {
+                name.setCharAt(i, Character.toLowerCase(name.charAt(i)));
+            }
+            return name.toString();
+        }
+
+        /**
+         * The generator method writing the value directly, {@code null} when the value is handed to the mapper
+         */
+        String writeMethod() {
+            switch (boxedName) {
+                case "java.lang.String":
+                    return "writeString";
+                case "java.lang.Boolean":
+                    return "writeBoolean";
+                case "java.lang.Short":
+                case "java.lang.Integer":
+                case "java.lang.Long":
+                case "java.lang.Float":
+                case "java.lang.Double":
+                    return "writeNumber";
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * The token read directly instead of through the deserializer, the way Jackson's own deserializer reads it
+         */
+        String fastToken() {
+            switch (boxedName) {
+                case "java.lang.String":
+                    return "token == JsonToken.VALUE_STRING";
+                case "java.lang.Boolean":
+                    return "(token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE)";
+                case "java.lang.Integer":
+                case "java.lang.Long":
+                    return "token == JsonToken.VALUE_NUMBER_INT";
+                case "java.lang.Float":
+                case "java.lang.Double":
+                    return "(token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT)";
+                default:
+                    return null;
+            }
+        }
+
+        String fastRead() {
+            switch (boxedName) {
+                case "java.lang.String":
+                    return "p.getText()";
+                case "java.lang.Boolean":
+                    return primitive ? "token == JsonToken.VALUE_TRUE" : "Boolean.valueOf(token == JsonToken.VALUE_TRUE)";
+                case "java.lang.Integer":
+                    return primitive ? "p.getIntValue()" : "Integer.valueOf(p.getIntValue())";
+                case "java.lang.Long":
+                    return primitive ? "p.getLongValue()" : "Long.valueOf(p.getLongValue())";
+                case "java.lang.Float":
+                    return primitive ? "p.getFloatValue()" : "Float.valueOf(p.getFloatValue())";
+                default:
+                    return primitive ? "p.getDoubleValue()" : "Double.valueOf(p.getDoubleValue())";
+            }
+        }
+    }
+
+}
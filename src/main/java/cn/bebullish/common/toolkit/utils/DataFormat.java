@@ -0,0 +1,48 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * <h3>Encodings supported by {@link JSONUtils}</h3>
+ *
+ * <p>Every format is bound with the same mapping rules, the binary ones trade readability for smaller payloads and
+ * cheaper parsing. Their Jackson data format modules are optional and only needed on the classpath when used</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public enum DataFormat {
+
+    /**
+     * UTF-8 JSON text
+     */
+    JSON(null),
+    /**
+     * Binary JSON, requires {@code jackson-dataformat-smile}
+     */
+    SMILE("com.fasterxml.jackson.dataformat.smile.SmileFactory"),
+    /**
+     * RFC 7049 Concise Binary Object Representation, requires {@code jackson-dataformat-cbor}
+     */
+    CBOR("com.fasterxml.jackson.dataformat.cbor.CBORFactory");
+
+    private final String factoryClassName;
+
+    DataFormat(String factoryClassName) {
+        this.factoryClassName = factoryClassName;
+    }
+
+    public boolean isBinary() {
+        return factoryClassName != null;
+    }
+
+    JsonFactory createFactory() {
+        if (factoryClassName == null) return new JsonFactory();
+        try {
+            return (JsonFactory) Class.forName(factoryClassName).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException(name() + " requires " + factoryClassName + " on the classpath", e);
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * <h3>Non-blocking decoder for JSON that arrives in chunks</h3>
+ *
+ * <p>Bytes are fed as they are received and parsed right away with Jackson's non-blocking parser, the tokens of each
+ * value are buffered until the value is complete and then bound with the shared mapper configuration, so no thread
+ * waits for input and the body is never held as a whole. The input is a sequence of root values, a root array is
+ * unwrapped into its elements unless the target type is itself a collection or an array</p>
+ *
+ * <p>Values are delivered to the {@link Subscriber} as it requests them, and at most {@code maxQueued} decoded values
+ * wait for demand: parsing stops once that many are queued and the rest of the chunk is kept as bytes until
+ * {@link #request(long)} makes room. {@link #feed(ByteBuffer)} returns {@code false} while the decoder is not ready
+ * for more, the caller should then stop reading until {@link #isReady()}, and feeding a chunk before the previous one
+ * was parsed throws, so no more than the queue and one chunk are ever held. Methods may be called from any thread,
+ * the callbacks run on the calling thread. Obtain instances through
+ * {@link JSONUtils#asyncDecoder(Class, Subscriber)}</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class JSONAsyncDecoder<T> {
+
+    public static final int DEFAULT_MAX_QUEUED = 256;
+    private static final Object NULL = new Object();
+
+    private final ObjectReader reader;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Subscriber<? super T> subscriber;
+    private final boolean unwrapArray;
+    private final int maxQueued;
+    private final Queue<Object> queue = new ArrayDeque<>();
+    private TokenBuffer buffer;
+    /**
+     * Copy of the chunk being parsed, the parser keeps reading it after the caller reused its own buffer
+     */
+    private byte[] input;
+    private int depth;
+    private boolean inRootArray;
+    private long demand;
+    private boolean draining;
+    private boolean inputEnded;
+    /**
+     * Raised once the parser reached the end of the complete input
+     */
+    private boolean parsed;
+    private boolean terminated;
+
+    JSONAsyncDecoder(JavaType type, ObjectReader reader, JsonParser parser, Subscriber<? super T> subscriber, int maxQueued) {
+        Assert.isTrue(maxQueued > 0, "Max queued must be positive");
+        this.reader = reader;
+        this.parser = parser;
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.subscriber = subscriber;
+        this.unwrapArray = !type.isCollectionLikeType() && !type.isArrayType();
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Adds to the number of values the subscriber is ready to receive, {@link Long#MAX_VALUE} means no limit
+     */
+    public synchronized void request(long n) {
+        Assert.isTrue(n > 0, "Requested count must be positive");
+        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        try {
+            advance();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Takes the remaining bytes of the chunk and parses as much of them as the queue has room for, the buffer can be
+     * reused once this returns
+     *
+     * @return whether more input should be fed now, {@code false} once decoded values are backlogged, part of the chunk
+     * waits for demand or the decoder is terminated
+     * @throws IllegalStateException if the previous chunk is not parsed yet
+     */
+    public synchronized boolean feed(ByteBuffer chunk) {
+        Assert.notNull(chunk, "Chunk must not be null");
+        if (!accepts()) return false;
+        int length = chunk.remaining();
+        chunk.get(reserve(length), 0, length);
+        return consume(length);
+    }
+
+    /**
+     * Takes the bytes between {@code start}, inclusive, and {@code end}, exclusive
+     *
+     * @see #feed(ByteBuffer)
+     */
+    public synchronized boolean feed(byte[] bytes, int start, int end) {
+        Assert.notNull(bytes, "Bytes must not be null");
+        if (!accepts()) return false;
+        int length = end - start;
+        System.arraycopy(bytes, start, reserve(length), 0, length);
+        return consume(length);
+    }
+
+    /**
+     * Signals the end of the input, the subscriber is completed once the remaining values are delivered, or fails if
+     * the input ends inside a value
+     */
+    public synchronized void complete() {
+        if (terminated || inputEnded) return;
+        feeder.endOfInput();
+        inputEnded = true;
+        try {
+            advance();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Stops decoding and drops the queued values, the subscriber receives no further signal
+     */
+    public synchronized void cancel() {
+        if (terminated) return;
+        terminated = true;
+        queue.clear();
+        closeQuietly();
+    }
+
+    public synchronized boolean isReady() {
+        return !terminated && !inputEnded && feeder.needMoreInput() && queue.size() < maxQueued;
+    }
+
+    private boolean accepts() {
+        Assert.state(!inputEnded, "Input is already complete");
+        if (terminated) return false;
+        Assert.state(feeder.needMoreInput(), "The previous chunk is not parsed yet, wait until the decoder is ready");
+        return true;
+    }
+
+    private byte[] reserve(int length) {
+        if (input == null || input.length < length) input = new byte[Math.max(length, 8192)];
+        return input;
+    }
+
+    private boolean consume(int length) {
+        try {
+            feeder.feedInput(input, 0, length);
+            advance();
+        } catch (IOException e) {
+            fail(e);
+            return false;
+        }
+        return isReady();
+    }
+
+    /**
+     * Parses and delivers in turn while the subscriber takes values and input is left
+     */
+    private void advance() throws IOException {
+        do {
+            if (terminated) return;
+            parse();
+            drain();
+        } while (!terminated && queue.size() < maxQueued && (!feeder.needMoreInput() || inputEnded && !parsed));
+    }
+
+    /**
+     * Parses until the input runs out or the queue is full
+     */
+    private void parse() throws IOException {
+        while (queue.size() < maxQueued) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                parsed = true;
+                parser.close();
+                return;
+            }
+            if (token == JsonToken.NOT_AVAILABLE) return;
+            if (depth == 0 && unwrapArray && !inRootArray && token == JsonToken.START_ARRAY) {
+                inRootArray = true;
+                continue;
+            }
+            if (depth == 0 && inRootArray && token == JsonToken.END_ARRAY) {
+                inRootArray = false;
+                continue;
+            }
+            if (buffer == null) {
+                buffer = new TokenBuffer(parser);
+                buffer.forceUseOfBigDecimal(reader.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS));
+            }
+            buffer.copyCurrentEvent(parser);
+            if (token.isStructStart()) depth++;
+            else if (token.isStructEnd()) depth--;
+            if (depth == 0) {
+                TokenBuffer value = buffer;
+                buffer = null;
+                try (JsonParser tokens = value.asParser()) {
+                    T bound = reader.readValue(tokens);
+                    queue.add(bound == null ? NULL : bound);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        if (draining) return;
+        draining = true;
+        try {
+            while (demand > 0 && !queue.isEmpty() && !terminated) {
+                Object value = queue.poll();
+                if (demand != Long.MAX_VALUE) demand--;
+                subscriber.onNext(value == NULL ? null : (T) value);
+            }
+            if (parsed && queue.isEmpty() && !terminated) {
+                terminated = true;
+                subscriber.onComplete();
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    private void fail(IOException e) {
+        terminated = true;
+        queue.clear();
+        closeQuietly();
+        subscriber.onError(e);
+    }
+
+    private void closeQuietly() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // the parser holds no resource besides its pooled buffers
+        }
+    }
+
+    /**
+     * Receives the decoded values, the signals follow the Reactive Streams rules: {@code onNext} at most as many times
+     * as requested, then either {@code onComplete} or {@code onError}
+     */
+    public interface Subscriber<T> {
+
+        void onNext(T value);
+
+        void onError(Throwable error);
+
+        default void onComplete() {
+        }
+    }
+
+}
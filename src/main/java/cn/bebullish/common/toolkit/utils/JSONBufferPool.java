@@ -0,0 +1,240 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Shared buffer pool for the parsers and generators of {@link JSONUtils}</h3>
+ *
+ * <p>Jackson keeps one set of buffers per thread by default, which gives no reuse to short-lived or virtual threads.
+ * With {@link Strategy#POOLED} every parser and generator borrows its buffers from a fixed number of lock-free slots
+ * shared by all threads and hands them back when it is closed, so the memory held is bounded by the slot count
+ * whatever the number of threads. Buffers that grew past {@link #MAX_POOLED_LENGTH} are left to the garbage
+ * collector</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class JSONBufferPool {
+
+    public static final int MAX_POOLED_LENGTH = 1 << 16;
+    private static final int BUFFER_TYPES = 4;
+
+    private final int capacity;
+    private final AtomicReferenceArray<byte[]>[] byteSlots;
+    private final AtomicReferenceArray<char[]>[] charSlots;
+    private final BufferRecycler recycler = new PooledRecycler();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Strategy strategy;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    JSONBufferPool(Strategy strategy) {
+        this.strategy = strategy;
+        // power of two, so a slot index is a mask away from any start position
+        this.capacity = Integer.highestOneBit(Math.max(16, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        this.byteSlots = new AtomicReferenceArray[BUFFER_TYPES];
+        this.charSlots = new AtomicReferenceArray[BUFFER_TYPES];
+        for (int i = 0; i < BUFFER_TYPES; i++) {
+            byteSlots[i] = new AtomicReferenceArray<>(capacity);
+            charSlots[i] = new AtomicReferenceArray<>(capacity);
+        }
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Switches the strategy of the parsers and generators created from now on, those already open keep theirs
+     */
+    public void setStrategy(Strategy strategy) {
+        Assert.notNull(strategy, "Strategy must not be null");
+        this.strategy = strategy;
+    }
+
+    /**
+     * Slots per buffer type, a parser or generator uses up to one buffer of each type
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Buffers served from the pool
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Buffers allocated because the pool had none of the type and size requested
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Buffers currently pooled, across all types
+     */
+    public int getSize() {
+        int size = 0;
+        for (int i = 0; i < BUFFER_TYPES; i++) {
+            for (int slot = 0; slot < capacity; slot++) {
+                if (byteSlots[i].get(slot) != null) size++;
+                if (charSlots[i].get(slot) != null) size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops the pooled buffers and resets the counters
+     */
+    public void clear() {
+        for (int i = 0; i < BUFFER_TYPES; i++) {
+            for (int slot = 0; slot < capacity; slot++) {
+                byteSlots[i].set(slot, null);
+                charSlots[i].set(slot, null);
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    JsonFactory newFactory() {
+        return new PooledJsonFactory(this);
+    }
+
+    private static <B> B take(AtomicReferenceArray<B> slots, int mask) {
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            B buffer = slots.get(slot);
+            if (buffer != null && slots.compareAndSet(slot, buffer, null)) return buffer;
+        }
+        return null;
+    }
+
+    private static <B> void offer(AtomicReferenceArray<B> slots, int mask, B buffer) {
+        int start = ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buffer)) return;
+        }
+    }
+
+    public enum Strategy {
+        /**
+         * Jackson's default, buffers are kept per thread
+         */
+        THREAD_LOCAL,
+        /**
+         * Buffers are shared by all threads through the bounded pool
+         */
+        POOLED,
+        /**
+         * Every parser and generator allocates its own buffers
+         */
+        NONE
+    }
+
+    /**
+     * Shared by every parser and generator, so all its methods are safe for concurrent use
+     */
+    private class PooledRecycler extends BufferRecycler {
+
+        @Override
+        public byte[] allocByteBuffer(int ix, int minSize) {
+            byte[] buffer = ix < BUFFER_TYPES ? take(byteSlots[ix], capacity - 1) : null;
+            if (buffer != null && buffer.length >= minSize) {
+                hits.increment();
+                return buffer;
+            }
+            // too short for this call, still good for the next one of the type
+            if (buffer != null) offer(byteSlots[ix], capacity - 1, buffer);
+            misses.increment();
+            return balloc(Math.max(minSize, byteBufferLength(ix)));
+        }
+
+        @Override
+        public void releaseByteBuffer(int ix, byte[] buffer) {
+            if (ix < BUFFER_TYPES && buffer != null && buffer.length <= MAX_POOLED_LENGTH) {
+                offer(byteSlots[ix], capacity - 1, buffer);
+            }
+        }
+
+        @Override
+        public char[] allocCharBuffer(int ix, int minSize) {
+            char[] buffer = ix < BUFFER_TYPES ? take(charSlots[ix], capacity - 1) : null;
+            if (buffer != null && buffer.length >= minSize) {
+                hits.increment();
+                return buffer;
+            }
+            // too short for this call, still good for the next one of the type
+            if (buffer != null) offer(charSlots[ix], capacity - 1, buffer);
+            misses.increment();
+            return calloc(Math.max(minSize, charBufferLength(ix)));
+        }
+
+        @Override
+        public void releaseCharBuffer(int ix, char[] buffer) {
+            if (ix < BUFFER_TYPES && buffer != null && buffer.length <= MAX_POOLED_LENGTH) {
+                offer(charSlots[ix], capacity - 1, buffer);
+            }
+        }
+    }
+
+    /**
+     * Hands the recycler of the selected strategy to every parser and generator it creates
+     */
+    private static final class PooledJsonFactory extends JsonFactory {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient JSONBufferPool pool;
+
+        PooledJsonFactory(JSONBufferPool pool) {
+            this.pool = pool;
+        }
+
+        private PooledJsonFactory(PooledJsonFactory src, ObjectCodec codec) {
+            super(src, codec);
+            this.pool = src.pool;
+        }
+
+        @Override
+        public JsonFactory copy() {
+            return new PooledJsonFactory(this, null);
+        }
+
+        /**
+         * Jackson only takes a factory of its own class for JSON unless told otherwise, the non-blocking parser
+         * requires it
+         */
+        @Override
+        public String getFormatName() {
+            return FORMAT_NAME_JSON;
+        }
+
+        @Override
+        public BufferRecycler _getBufferRecycler() {
+            switch (pool.strategy) {
+                case POOLED:
+                    return pool.recycler;
+                case NONE:
+                    return new BufferRecycler();
+                default:
+                    return super._getBufferRecycler();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <h3>Typed JSON handle for one target type</h3>
+ *
+ * <p>Holds an {@link ObjectReader} and {@link ObjectWriter} resolved once for the type, so repeated calls skip the
+ * type resolution and serializer lookup of the {@link ObjectMapper} entry points. Obtain instances through
+ * {@link JSONUtils#codec(Class)} or {@link JSONUtils#codec(com.fasterxml.jackson.core.type.TypeReference)}. The
+ * {@code String} methods are only available for the text format, binary codecs read and write bytes</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class JSONCodec<T> {
+
+    private final JavaType type;
+    private final DataFormat format;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    JSONCodec(ObjectMapper mapper, JavaType type, DataFormat format) {
+        this.type = type;
+        this.format = format;
+        this.reader = mapper.readerFor(type);
+        this.writer = mapper.writerFor(type);
+    }
+
+    public JavaType getType() {
+        return type;
+    }
+
+    public DataFormat getFormat() {
+        return format;
+    }
+
+    public ObjectReader reader() {
+        return reader;
+    }
+
+    public ObjectWriter writer() {
+        return writer;
+    }
+
+    @NonNull
+    public String write2strNonnull(@NonNull T obj) {
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return textWriter().writeValueAsString(obj);
+        } catch (IOException e) {
+            throw JSONUtils.exceptionHandleNonnull("write2strNonnull", type, e);
+        }
+    }
+
+    @NonNull
+    public byte[] write2bytesNonnull(@NonNull T obj) {
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return writer.writeValueAsBytes(obj);
+        } catch (IOException e) {
+            throw JSONUtils.exceptionHandleNonnull("write2bytesNonnull", type, e);
+        }
+    }
+
+    @NonNull
+    public T readNonnull(@NonNull String json) {
+        Assert.notNull(json, "Origin json must not be null");
+        try {
+            return textReader().readValue(json);
+        } catch (IOException e) {
+            throw JSONUtils.exceptionHandleNonnull("readNonnull", type, e);
+        }
+    }
+
+    @NonNull
+    public T readNonnull(@NonNull byte[] bytes) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        try {
+            return reader.readValue(bytes);
+        } catch (IOException e) {
+            throw JSONUtils.exceptionHandleNonnull("readNonnull", type, e);
+        }
+    }
+
+    @Nullable
+    public String write2strNullable(@Nullable T obj) {
+        if (Objects.isNull(obj)) return null;
+
+        try {
+            return textWriter().writeValueAsString(obj);
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandleNullable("write2strNullable", type, e);
+        }
+    }
+
+    @Nullable
+    public byte[] write2bytesNullable(@Nullable T obj) {
+        if (Objects.isNull(obj)) return null;
+
+        try {
+            return writer.writeValueAsBytes(obj);
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandleNullable("write2bytesNullable", type, e);
+        }
+    }
+
+    @Nullable
+    public T readNullable(@Nullable String json) {
+        if (Objects.isNull(json)) return null;
+
+        try {
+            return textReader().readValue(json);
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandleNullable("readNullable", type, e);
+        }
+    }
+
+    @Nullable
+    public T readNullable(@Nullable byte[] bytes) {
+        if (Objects.isNull(bytes)) return null;
+
+        try {
+            return reader.readValue(bytes);
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandleNullable("readNullable", type, e);
+        }
+    }
+
+    public Optional<String> write2str(T obj) {
+        if (Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(textWriter().writeValueAsString(obj));
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandle("write2str", type, e);
+        }
+    }
+
+    public Optional<byte[]> write2bytes(T obj) {
+        if (Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(writer.writeValueAsBytes(obj));
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandle("write2bytes", type, e);
+        }
+    }
+
+    public Optional<T> read(String json) {
+        if (Objects.isNull(json)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(textReader().readValue(json));
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandle("read", type, e);
+        }
+    }
+
+    public Optional<T> read(byte[] bytes) {
+        if (Objects.isNull(bytes)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(reader.readValue(bytes));
+        } catch (IOException e) {
+            return JSONUtils.exceptionHandle("read", type, e);
+        }
+    }
+
+    private ObjectWriter textWriter() {
+        Assert.state(!format.isBinary(), format + " codec can not write a String");
+        return writer;
+    }
+
+    private ObjectReader textReader() {
+        Assert.state(!format.isBinary(), format + " codec can not read a String");
+        return reader;
+    }
+
+}
@@ -0,0 +1,162 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * <h3>Object to object conversion without the intermediate JSON text</h3>
+ *
+ * <p>Serializes the source object into a token buffer and binds the target type straight from it. The buffer
+ * normalizes every token to what a parser would return for the equivalent JSON text, so the converted value is the
+ * same as going through {@code writeValueAsString} and {@code readValue}</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class JSONConverter {
+
+    private JSONConverter() {
+    }
+
+    static <T> T convert(ObjectMapper mapper, Object obj, JavaType type) throws IOException {
+        TextEquivalentBuffer buffer = new TextEquivalentBuffer(mapper);
+        mapper.getSerializationConfig().initialize(buffer);
+        mapper.writeValue(buffer, obj);
+        try (JsonParser parser = buffer.asParser()) {
+            return mapper.readValue(parser, type);
+        }
+    }
+
+    /**
+     * Token buffer that stores numbers, binary data and raw values the way the JSON parser would read them back,
+     * e.g. a {@code long} that fits in an {@code int} becomes an {@code Integer}
+     */
+    private static class TextEquivalentBuffer extends TokenBuffer {
+
+        /**
+         * Generator features behind {@link JsonWriteFeature}, the buffer only understands {@link JsonGenerator.Feature}
+         */
+        private static final JsonGenerator.Feature NUMBERS_AS_STRINGS = JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS.mappedFeature();
+        private static final JsonGenerator.Feature NAN_AS_STRINGS = JsonWriteFeature.WRITE_NAN_AS_STRINGS.mappedFeature();
+
+        private final ObjectMapper mapper;
+
+        TextEquivalentBuffer(ObjectMapper mapper) {
+            super(mapper, false);
+            this.mapper = mapper;
+            configure(NAN_AS_STRINGS, mapper.getFactory().isEnabled(NAN_AS_STRINGS));
+            configure(NUMBERS_AS_STRINGS, mapper.getFactory().isEnabled(NUMBERS_AS_STRINGS));
+            configure(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN, mapper.getFactory().isEnabled(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN));
+        }
+
+        @Override
+        public void writeNumber(short i) throws IOException {
+            writeNumber((int) i);
+        }
+
+        @Override
+        public void writeNumber(int i) throws IOException {
+            if (isEnabled(NUMBERS_AS_STRINGS)) writeString(String.valueOf(i));
+            else super.writeNumber(i);
+        }
+
+        @Override
+        public void writeNumber(long l) throws IOException {
+            if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) writeNumber((int) l);
+            else if (isEnabled(NUMBERS_AS_STRINGS)) writeString(String.valueOf(l));
+            else super.writeNumber(l);
+        }
+
+        @Override
+        public void writeNumber(BigInteger v) throws IOException {
+            if (v == null) writeNull();
+            else if (v.bitLength() < 64) writeNumber(v.longValue());
+            else if (isEnabled(NUMBERS_AS_STRINGS)) writeString(v.toString());
+            else super.writeNumber(v);
+        }
+
+        @Override
+        public void writeNumber(float f) throws IOException {
+            if (quoted(f)) writeString(String.valueOf(f));
+            else super.writeNumber(String.valueOf(f));
+        }
+
+        @Override
+        public void writeNumber(double d) throws IOException {
+            if (quoted(d)) writeString(String.valueOf(d));
+            else super.writeNumber(d);
+        }
+
+        @Override
+        public void writeNumber(BigDecimal v) throws IOException {
+            if (v == null) {
+                writeNull();
+                return;
+            }
+            String text = isEnabled(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN) ? v.toPlainString() : v.toString();
+            if (isEnabled(NUMBERS_AS_STRINGS)) writeString(text);
+            else if (isIntegral(text)) writeNumber(new BigInteger(text));
+            else super.writeNumber(v);
+        }
+
+        @Override
+        public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+            byte[] bytes = offset == 0 && len == data.length ? data : Arrays.copyOfRange(data, offset, offset + len);
+            writeString(variant.encode(bytes));
+        }
+
+        @Override
+        public void writeRawValue(String text) throws IOException {
+            try (JsonParser parser = mapper.getFactory().createParser(text)) {
+                while (parser.nextToken() != null) {
+                    copyCurrentEvent(parser);
+                }
+            }
+        }
+
+        @Override
+        public void writeRawValue(String text, int offset, int len) throws IOException {
+            writeRawValue(text.substring(offset, offset + len));
+        }
+
+        @Override
+        public void writeRawValue(char[] text, int offset, int len) throws IOException {
+            writeRawValue(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeObject(Object value) throws IOException {
+            Object raw = value instanceof RawValue ? ((RawValue) value).rawValue() : null;
+            if (value instanceof byte[]) writeBinary((byte[]) value);
+            else if (raw instanceof String) writeRawValue((String) raw);
+            else if (raw instanceof SerializableString) writeRawValue(((SerializableString) raw).getValue());
+            else super.writeObject(value);
+        }
+
+        private boolean quoted(double d) {
+            if (isEnabled(NUMBERS_AS_STRINGS)) return true;
+            return !Double.isFinite(d) && isEnabled(NAN_AS_STRINGS);
+        }
+
+        private static boolean isIntegral(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '.' || c == 'e' || c == 'E') return false;
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonFormatVisitorWrapper;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.AccessPattern;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * <h3>Fast paths for the fixed date and time patterns</h3>
+ *
+ * <p>Formats {@link JSONUtils#DATE_TIME_PATTERN}, {@link JSONUtils#DATE_PATTERN} and {@link JSONUtils#TIME_PATTERN}
+ * digit by digit into a per-thread buffer and parses them straight from the parser's characters. Anything outside the
+ * fast path, e.g. a year with more than four digits, a lenient value such as {@code 2020-02-30}, a non-string token or a
+ * property level {@code @JsonFormat}, is handed to the wrapped Jackson serializer or deserializer, so the results are
+ * always the same as theirs</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class JSONDateTimes {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    /**
+     * Covers the largest offset change there has ever been, no transition within it means the local time is unique
+     */
+    private static final long TRANSITION_MARGIN = 26 * 3_600_000L;
+    /**
+     * {@link java.text.SimpleDateFormat} switches to the Julian calendar before October 1582
+     */
+    private static final int MIN_GREGORIAN_YEAR = 1600;
+    private static final int MAX_YEAR = 9999;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[19]);
+
+    private JSONDateTimes() {
+    }
+
+    static JsonSerializer<LocalDateTime> localDateTimeSerializer(JsonSerializer<LocalDateTime> fallback) {
+        return new FastSerializer<>(LocalDateTime.class, fallback, JSONDateTimes::format);
+    }
+
+    static JsonDeserializer<LocalDateTime> localDateTimeDeserializer(JsonDeserializer<LocalDateTime> fallback) {
+        return new FastDeserializer<>(LocalDateTime.class, fallback, JSONDateTimes::parseLocalDateTime);
+    }
+
+    static JsonSerializer<LocalDate> localDateSerializer(JsonSerializer<LocalDate> fallback) {
+        return new FastSerializer<>(LocalDate.class, fallback, JSONDateTimes::format);
+    }
+
+    static JsonDeserializer<LocalDate> localDateDeserializer(JsonDeserializer<LocalDate> fallback) {
+        return new FastDeserializer<>(LocalDate.class, fallback, JSONDateTimes::parseLocalDate);
+    }
+
+    static JsonSerializer<LocalTime> localTimeSerializer(JsonSerializer<LocalTime> fallback) {
+        return new FastSerializer<>(LocalTime.class, fallback, JSONDateTimes::format);
+    }
+
+    static JsonDeserializer<LocalTime> localTimeDeserializer(JsonDeserializer<LocalTime> fallback) {
+        return new FastDeserializer<>(LocalTime.class, fallback, JSONDateTimes::parseLocalTime);
+    }
+
+    /**
+     * @param zone the time zone of the fallback's date format
+     */
+    static JsonSerializer<Date> dateSerializer(JsonSerializer<Date> fallback, TimeZone zone) {
+        TimeZone copy = (TimeZone) zone.clone();
+        return new FastSerializer<>(Date.class, fallback, (value, buffer) -> format(value, copy, buffer));
+    }
+
+    /**
+     * @param zone the time zone of the fallback's date format
+     */
+    static JsonDeserializer<Date> dateDeserializer(JsonDeserializer<Date> fallback, TimeZone zone) {
+        TimeZone copy = (TimeZone) zone.clone();
+        return new FastDeserializer<>(Date.class, fallback, (text, offset, len) -> parseDate(text, offset, len, copy));
+    }
+
+    private static int format(LocalDateTime value, char[] buffer) {
+        if (value.getYear() < 1 || value.getYear() > MAX_YEAR) return -1;
+        writeDate(buffer, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+        buffer[10] = ' ';
+        writeTime(buffer, 11, value.getHour(), value.getMinute(), value.getSecond());
+        return 19;
+    }
+
+    private static int format(LocalDate value, char[] buffer) {
+        if (value.getYear() < 1 || value.getYear() > MAX_YEAR) return -1;
+        writeDate(buffer, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+        return 10;
+    }
+
+    private static int format(LocalTime value, char[] buffer) {
+        writeTime(buffer, 0, value.getHour(), value.getMinute(), value.getSecond());
+        return 8;
+    }
+
+    private static int format(Date value, TimeZone zone, char[] buffer) {
+        long millis = value.getTime();
+        long local = millis + zone.getOffset(millis);
+        long days = Math.floorDiv(local, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+
+        // civil date of an epoch day, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < MIN_GREGORIAN_YEAR || year > MAX_YEAR) return -1;
+
+        writeDate(buffer, 0, (int) year, month, day);
+        buffer[10] = ' ';
+        writeTime(buffer, 11, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+        return 19;
+    }
+
+    private static LocalDateTime parseLocalDateTime(char[] text, int offset, int len) {
+        if (len != 19 || text[offset + 10] != ' ' || !isDate(text, offset) || !isTime(text, offset + 11)) return null;
+        return LocalDateTime.of(digits(text, offset, 4), digits(text, offset + 5, 2), digits(text, offset + 8, 2),
+                digits(text, offset + 11, 2), digits(text, offset + 14, 2), digits(text, offset + 17, 2));
+    }
+
+    private static LocalDate parseLocalDate(char[] text, int offset, int len) {
+        if (len != 10 || !isDate(text, offset)) return null;
+        return LocalDate.of(digits(text, offset, 4), digits(text, offset + 5, 2), digits(text, offset + 8, 2));
+    }
+
+    private static LocalTime parseLocalTime(char[] text, int offset, int len) {
+        if (len != 8 || !isTime(text, offset)) return null;
+        return LocalTime.of(digits(text, offset, 2), digits(text, offset + 3, 2), digits(text, offset + 6, 2));
+    }
+
+    private static Date parseDate(char[] text, int offset, int len, TimeZone zone) {
+        if (len != 19 || text[offset + 10] != ' ' || !isDate(text, offset) || !isTime(text, offset + 11)) return null;
+        int year = digits(text, offset, 4);
+        if (year < MIN_GREGORIAN_YEAR) return null;
+
+        long local = epochDay(year, digits(text, offset + 5, 2), digits(text, offset + 8, 2)) * MILLIS_PER_DAY
+                + (digits(text, offset + 11, 2) * 3600L + digits(text, offset + 14, 2) * 60L + digits(text, offset + 17, 2)) * 1000L;
+        int zoneOffset = zone.getOffset(local);
+        long millis = local - zoneOffset;
+        // near a transition the local time may be skipped or repeated, leave that to the date format
+        if (zone.getOffset(millis) != zoneOffset
+                || zone.getOffset(millis - TRANSITION_MARGIN) != zoneOffset
+                || zone.getOffset(millis + TRANSITION_MARGIN) != zoneOffset) return null;
+        return new Date(millis);
+    }
+
+    /**
+     * {@code yyyy-MM-dd} with a valid date, years 1 to 9999
+     */
+    private static boolean isDate(char[] text, int offset) {
+        if (text[offset + 4] != '-' || text[offset + 7] != '-') return false;
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        return year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month);
+    }
+
+    /**
+     * {@code HH:mm:ss} with a valid time, {@code 24:00:00} is left to the fallback
+     */
+    private static boolean isTime(char[] text, int offset) {
+        if (text[offset + 2] != ':' || text[offset + 5] != ':') return false;
+        int hour = digits(text, offset, 2);
+        int minute = digits(text, offset + 3, 2);
+        int second = digits(text, offset + 6, 2);
+        return hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60;
+    }
+
+    /**
+     * @return the value of the ASCII digits, {@code -1} if any of them is not one
+     */
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static void writeDate(char[] buffer, int offset, int year, int month, int day) {
+        buffer[offset] = (char) ('0' + year / 1000);
+        buffer[offset + 1] = (char) ('0' + year / 100 % 10);
+        buffer[offset + 2] = (char) ('0' + year / 10 % 10);
+        buffer[offset + 3] = (char) ('0' + year % 10);
+        buffer[offset + 4] = '-';
+        writeTwoDigits(buffer, offset + 5, month);
+        buffer[offset + 7] = '-';
+        writeTwoDigits(buffer, offset + 8, day);
+    }
+
+    private static void writeTime(char[] buffer, int offset, int hour, int minute, int second) {
+        writeTwoDigits(buffer, offset, hour);
+        buffer[offset + 2] = ':';
+        writeTwoDigits(buffer, offset + 3, minute);
+        buffer[offset + 5] = ':';
+        writeTwoDigits(buffer, offset + 6, second);
+    }
+
+    private static void writeTwoDigits(char[] buffer, int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    @FunctionalInterface
+    private interface Formatter<T> {
+        /**
+         * @return number of characters written, {@code -1} to use the fallback
+         */
+        int format(T value, char[] buffer);
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        /**
+         * @return the parsed value, {@code null} to use the fallback
+         */
+        T parse(char[] text, int offset, int len);
+    }
+
+    /**
+     * Only a {@code @JsonFormat} with a shape, pattern, locale or time zone, on the property or configured for the type,
+     * leaves the fast path, the Jackson serializers return a new instance from every contextualization
+     */
+    private static boolean hasFormatOverride(JsonFormat.Value format) {
+        return format != null && (format.hasShape() || format.hasPattern() || format.hasLocale() || format.hasTimeZone());
+    }
+
+    private static class FastSerializer<T> extends StdSerializer<T> implements ContextualSerializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JsonSerializer<T> fallback;
+        private final Formatter<T> formatter;
+
+        FastSerializer(Class<T> type, JsonSerializer<T> fallback, Formatter<T> formatter) {
+            super(type);
+            this.fallback = fallback;
+            this.formatter = formatter;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] buffer = BUFFER.get();
+            int len = formatter.format(value, buffer);
+            if (len < 0) fallback.serialize(value, gen, provider);
+            else gen.writeString(buffer, 0, len);
+        }
+
+        @Override
+        public void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            fallback.serializeWithType(value, gen, provider, typeSer);
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            if (!(fallback instanceof ContextualSerializer)
+                    || !hasFormatOverride(findFormatOverrides(provider, property, handledType()))) return this;
+            return ((ContextualSerializer) fallback).createContextual(provider, property);
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, T value) {
+            return fallback.isEmpty(provider, value);
+        }
+
+        @Override
+        public void acceptJsonFormatVisitor(JsonFormatVisitorWrapper visitor, JavaType typeHint) throws JsonMappingException {
+            fallback.acceptJsonFormatVisitor(visitor, typeHint);
+        }
+    }
+
+    private static class FastDeserializer<T> extends StdDeserializer<T> implements ContextualDeserializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JsonDeserializer<T> fallback;
+        private final Parser<T> parser;
+
+        FastDeserializer(Class<T> type, JsonDeserializer<T> fallback, Parser<T> parser) {
+            super(type);
+            this.fallback = fallback;
+            this.parser = parser;
+        }
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                T value = parser.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                if (value != null) return value;
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            return fallback.deserializeWithType(p, ctxt, typeDeserializer);
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) throws JsonMappingException {
+            if (!(fallback instanceof ContextualDeserializer)
+                    || !hasFormatOverride(findFormatOverrides(ctxt, property, handledType()))) return this;
+            return ((ContextualDeserializer) fallback).createContextual(ctxt, property);
+        }
+
+        @Override
+        public T getNullValue(DeserializationContext ctxt) throws JsonMappingException {
+            return fallback.getNullValue(ctxt);
+        }
+
+        @Override
+        public AccessPattern getNullAccessPattern() {
+            return fallback.getNullAccessPattern();
+        }
+
+        @Override
+        public Object getEmptyValue(DeserializationContext ctxt) throws JsonMappingException {
+            return fallback.getEmptyValue(ctxt);
+        }
+
+        @Override
+        public AccessPattern getEmptyAccessPattern() {
+            return fallback.getEmptyAccessPattern();
+        }
+    }
+
+}
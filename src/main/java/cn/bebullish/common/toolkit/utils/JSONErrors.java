@@ -0,0 +1,328 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Failure metrics of {@link JSONUtils}</h3>
+ *
+ * <p>Counts the failed calls per operation and target type in lock-free counters. Each operation and type logs its
+ * first failure and then at most one line per log interval with the number of failures suppressed in between, so a
+ * burst of malformed input costs a counter increment per failure rather than a log line. The last messages can be kept
+ * as samples. The number of distinct operation and type pairs is bounded, failures beyond it are counted under
+ * {@link #OTHER}</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class JSONErrors {
+
+    public static final Duration DEFAULT_LOG_INTERVAL = Duration.ofSeconds(10);
+    public static final int MAXIMUM_KEYS = 1024;
+    public static final String OTHER = "*";
+    private static final String NONE = "-";
+    private static final Key OTHER_KEY = new Key(OTHER, OTHER);
+
+    private final ConcurrentHashMap<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private volatile long logIntervalNanos = DEFAULT_LOG_INTERVAL.toNanos();
+    private volatile AtomicReferenceArray<Sample> samples;
+
+    JSONErrors() {
+    }
+
+    public Duration getLogInterval() {
+        return Duration.ofNanos(logIntervalNanos);
+    }
+
+    /**
+     * Minimum time between two log lines of one operation and type, {@link Duration#ZERO} logs every failure
+     */
+    public void setLogInterval(Duration interval) {
+        Assert.notNull(interval, "Log interval must not be null");
+        Assert.isTrue(!interval.isNegative(), "Log interval must not be negative");
+        this.logIntervalNanos = interval.toNanos();
+    }
+
+    public int getSampleSize() {
+        AtomicReferenceArray<Sample> current = samples;
+        return current == null ? 0 : current.length();
+    }
+
+    /**
+     * Number of last failure messages kept, {@code 0} keeps none. The samples kept so far are dropped
+     */
+    public void setSampleSize(int size) {
+        Assert.isTrue(size >= 0, "Sample size must not be negative");
+        this.samples = size == 0 ? null : new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Total failures recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (Counter counter : counters.values()) {
+            count += counter.count.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Failures recorded for the operation, across all target types
+     */
+    public long getCount(String operation) {
+        long count = 0;
+        for (Counter counter : counters.values()) {
+            if (counter.key.operation.equals(operation)) count += counter.count.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Counters of every operation and type that failed, the most frequent first
+     */
+    public List<Stats> snapshot() {
+        List<Stats> snapshot = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            snapshot.add(new Stats(counter));
+        }
+        snapshot.sort(Comparator.comparingLong(Stats::getCount).reversed());
+        return snapshot;
+    }
+
+    /**
+     * Last failures, the oldest first
+     */
+    public List<Sample> samples() {
+        AtomicReferenceArray<Sample> current = samples;
+        if (current == null) return Collections.emptyList();
+        List<Sample> kept = new ArrayList<>(current.length());
+        for (int i = 0; i < current.length(); i++) {
+            Sample sample = current.get(i);
+            if (sample != null) kept.add(sample);
+        }
+        kept.sort(Comparator.comparingLong(sample -> sample.sequence));
+        return kept;
+    }
+
+    /**
+     * Drops the counters and samples
+     */
+    public void reset() {
+        counters.clear();
+        AtomicReferenceArray<Sample> current = samples;
+        if (current != null) {
+            for (int i = 0; i < current.length(); i++) {
+                current.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * Counts the failure and logs it unless the operation and type already logged within the interval
+     *
+     * @param target the class, type reference or type the call binds to, or the value it writes
+     */
+    void record(String operation, Object target, Exception e) {
+        Counter counter = counter(operation, targetName(target));
+        counter.count.increment();
+        long now = System.nanoTime();
+        counter.lastFailure = System.currentTimeMillis();
+
+        AtomicReferenceArray<Sample> current = samples;
+        String message = null;
+        if (current != null) {
+            message = e.getMessage();
+            long sequence = sampleSequence.getAndIncrement();
+            current.set((int) (sequence % current.length()), new Sample(sequence, counter.key, message, counter.lastFailure));
+        }
+
+        long next = counter.nextLog.get();
+        if (now - next < 0 || !counter.nextLog.compareAndSet(next, now + logIntervalNanos)) {
+            counter.suppressed.increment();
+            return;
+        }
+        long suppressed = counter.suppressed.sumThenReset();
+        if (message == null) message = e.getMessage();
+        if (suppressed == 0) {
+            Logs.labels("JsonProcessingException").error("{} method failed for {}, message : {}",
+                    operation, counter.key.target, message);
+        } else {
+            Logs.labels("JsonProcessingException").error("{} method failed for {}, message : {}, {} similar failures suppressed",
+                    operation, counter.key.target, message, suppressed);
+        }
+    }
+
+    private Counter counter(String operation, String target) {
+        Key key = new Key(operation, target);
+        Counter counter = counters.get(key);
+        if (counter != null) return counter;
+        // checked before inserting, so the bound may be overshot by the number of racing threads
+        if (counters.size() >= MAXIMUM_KEYS) key = OTHER_KEY;
+        return counters.computeIfAbsent(key, Counter::new);
+    }
+
+    private static String targetName(Object target) {
+        if (target == null) return NONE;
+        if (target instanceof Class) return ((Class<?>) target).getName();
+        if (target instanceof JavaType) return ((JavaType) target).toCanonical();
+        if (target instanceof TypeReference) return ((TypeReference<?>) target).getType().getTypeName();
+        if (target instanceof Type) return ((Type) target).getTypeName();
+        return target.getClass().getName();
+    }
+
+    private static final class Key {
+        private final String operation;
+        private final String target;
+        private final int hash;
+
+        Key(String operation, String target) {
+            this.operation = operation;
+            this.target = target;
+            this.hash = operation.hashCode() * 31 + target.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return operation.equals(other.operation) && target.equals(other.target);
+        }
+    }
+
+    private static final class Counter {
+        private final Key key;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        /**
+         * {@link System#nanoTime()} from which the next failure may log, the first one always does
+         */
+        private final AtomicLong nextLog = new AtomicLong(System.nanoTime());
+        private volatile long lastFailure;
+
+        Counter(Key key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Counters of one operation and target type at the time of the snapshot
+     */
+    public static final class Stats {
+        private final String operation;
+        private final String target;
+        private final long count;
+        private final long suppressed;
+        private final long lastFailure;
+
+        Stats(Counter counter) {
+            this.operation = counter.key.operation;
+            this.target = counter.key.target;
+            this.count = counter.count.sum();
+            this.suppressed = counter.suppressed.sum();
+            this.lastFailure = counter.lastFailure;
+        }
+
+        /**
+         * Name of the failed {@link JSONUtils} or {@link JSONCodec} method, {@link #OTHER} once the bound is reached
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * Type the call read into or wrote from, {@code -} when the call has none
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Failures not logged since the last log line
+         */
+        public long getSuppressed() {
+            return suppressed;
+        }
+
+        /**
+         * Epoch millis of the last failure
+         */
+        public long getLastFailure() {
+            return lastFailure;
+        }
+
+        @Override
+        public String toString() {
+            return operation + "(" + target + ") failed " + count + " times";
+        }
+    }
+
+    /**
+     * Message of one failure
+     */
+    public static final class Sample {
+        private final long sequence;
+        private final String operation;
+        private final String target;
+        private final String message;
+        private final long time;
+
+        Sample(long sequence, Key key, String message, long time) {
+            this.sequence = sequence;
+            this.operation = key.operation;
+            this.target = key.target;
+            this.message = message;
+            this.time = time;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Epoch millis of the failure
+         */
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public String toString() {
+            return operation + "(" + target + ") : " + Objects.toString(message);
+        }
+    }
+
+}
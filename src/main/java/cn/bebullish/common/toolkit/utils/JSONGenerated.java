@@ -0,0 +1,25 @@
+package cn.bebullish.common.toolkit.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <h3>Marks a DTO for compile-time generated JSON codecs</h3>
+ *
+ * <p>With {@code common-toolkit-processor} on the annotation processor path, a serializer and a deserializer are
+ * generated for the class and registered on the mappers of {@link JSONUtils} when they are created, so its properties
+ * are read and written without reflection. The class needs a no-argument constructor, getters and setters named
+ * after its fields, e.g. through Lombok's {@code @Data}, and no superclass; of the Jackson annotations only
+ * {@code @JsonProperty} and {@code @JsonIgnore} on fields are supported</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface JSONGenerated {
+}
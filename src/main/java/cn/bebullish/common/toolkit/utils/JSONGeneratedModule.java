@@ -0,0 +1,23 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * <h3>Base class of the modules generated for {@link JSONGenerated} classes</h3>
+ *
+ * <p>The annotation processor lists the generated modules as services of this class, {@link JSONUtils} loads and
+ * registers them on every mapper it configures</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public abstract class JSONGeneratedModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    protected JSONGeneratedModule(String name) {
+        super(name, Version.unknownVersion());
+    }
+
+}
@@ -0,0 +1,327 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <h3>Parallel bulk processing for JSON arrays and JSON Lines</h3>
+ *
+ * <p>Splits the work into chunks, runs them on a {@link ForkJoinPool} and, when the order matters, hands the chunk
+ * results back on the calling thread in input order. At most {@code 2 * parallelism} chunks are in flight and the
+ * chunks whose results are held until their turn have a fixed size: {@link #ORDERED_CHUNK_SIZE} bytes of input when
+ * reading lines in order, a little over that when a single line is longer, and {@link #WRITE_CHUNK_ELEMENTS} values
+ * when writing. So the memory held depends on the parallelism and the size of the values, not on the size of the
+ * input. Lines read out of order are handed over as they are decoded, their chunks grow with the file to cut the
+ * number of mappings</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class JSONParallel {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    /**
+     * Input bytes per chunk whose decoded values are held until the chunks ahead of it are handed over
+     */
+    static final long ORDERED_CHUNK_SIZE = 1L << 20;
+    static final int WRITE_CHUNK_ELEMENTS = 512;
+    /**
+     * Buffers that grew beyond this while encoding a chunk are not kept for reuse
+     */
+    private static final int MAX_POOLED_BUFFER = 1 << 20;
+
+    private JSONParallel() {
+    }
+
+    /**
+     * Memory-maps the file chunk by chunk and decodes one value per line in parallel. Chunks always end on a line
+     * boundary and are read from the mapping directly, the file is never copied onto the heap
+     *
+     * @param ordered {@code true} to call the sink on the calling thread in file order, {@code false} to call it
+     *                concurrently from the pool threads as lines are decoded
+     * @return number of elements handed to the sink
+     */
+    static <T> long readLines(JSONCodec<T> codec, Path path, Consumer<? super T> sink, boolean ordered, ForkJoinPool pool,
+                              JSONStreams.Policy policy) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // held decoded until their turn, so their size must not grow with the file
+            long chunkSize = ordered ? ORDERED_CHUNK_SIZE
+                    : Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (pool.getParallelism() * 4L)));
+            Iterator<Callable<Chunk<T>>> tasks = new Iterator<Callable<Chunk<T>>>() {
+                private long start;
+
+                @Override
+                public boolean hasNext() {
+                    return start < size;
+                }
+
+                @Override
+                public Callable<Chunk<T>> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    long from = start;
+                    long to = nextLineStart(channel, Math.min(size, from + chunkSize), size);
+                    start = to;
+                    return () -> {
+                        List<T> values = ordered ? new ArrayList<>() : null;
+                        Consumer<? super T> target = ordered ? (Consumer<T>) values::add : sink;
+                        return new Chunk<>(values, decodeLines(codec, map(channel, from, to - from), target, policy));
+                    };
+                }
+            };
+            long[] count = new long[1];
+            try {
+                forEachInOrder(pool, tasks, chunk -> {
+                    if (chunk.values != null) chunk.values.forEach(sink);
+                    count[0] += chunk.count;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return count[0];
+        }
+    }
+
+    /**
+     * Runs the tasks with at most {@code 2 * parallelism} of them in flight and hands the results to the consumer in
+     * task order on the calling thread. A failing task cancels the ones still in flight and its exception is rethrown
+     */
+    static <R> void forEachInOrder(ForkJoinPool pool, Iterator<? extends Callable<R>> tasks, Consumer<? super R> consumer) {
+        int window = Math.max(2, pool.getParallelism() * 2);
+        ArrayDeque<ForkJoinTask<R>> inFlight = new ArrayDeque<>(window);
+        try {
+            while (tasks.hasNext() || !inFlight.isEmpty()) {
+                while (inFlight.size() < window && tasks.hasNext()) {
+                    inFlight.add(pool.submit(tasks.next()));
+                }
+                consumer.accept(inFlight.poll().join());
+            }
+        } catch (RuntimeException e) {
+            // join() rethrows a copy of a foreign thread's exception with the original as its cause
+            Throwable cause = e.getCause();
+            throw cause != null && cause.getClass() == e.getClass() ? (RuntimeException) cause : e;
+        } finally {
+            for (ForkJoinTask<R> task : inFlight) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Encodes the values in chunks on the pool into reusable buffers and writes the chunks to the stream in input order
+     * from the calling thread, as one JSON array or as JSON Lines
+     *
+     * @param writers resolves the writer for a value, {@code null} values are written as {@code null}
+     * @return number of elements written, failed elements count when written as {@code null}
+     */
+    static long writeAll(ObjectMapper mapper, Function<Object, ObjectWriter> writers, Iterator<?> values, OutputStream out,
+                         boolean lines, ForkJoinPool pool, JSONStreams.Policy policy) throws IOException {
+        Queue<ChunkBuffer> buffers = new ConcurrentLinkedQueue<>();
+        Iterator<Callable<ChunkBuffer>> tasks = new Iterator<Callable<ChunkBuffer>>() {
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public Callable<ChunkBuffer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                List<Object> chunk = new ArrayList<>(WRITE_CHUNK_ELEMENTS);
+                while (chunk.size() < WRITE_CHUNK_ELEMENTS && values.hasNext()) {
+                    chunk.add(values.next());
+                }
+                return () -> {
+                    ChunkBuffer buffer = buffers.poll();
+                    if (buffer == null) buffer = new ChunkBuffer();
+                    encode(mapper, writers, chunk, buffer, lines, policy);
+                    return buffer;
+                };
+            }
+        };
+        long[] count = new long[1];
+        try {
+            if (!lines) out.write('[');
+            forEachInOrder(pool, tasks, buffer -> {
+                try {
+                    if (buffer.elements > 0) {
+                        if (!lines && count[0] > 0) out.write(',');
+                        buffer.writeTo(out);
+                        count[0] += buffer.elements;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (buffer.size() <= MAX_POOLED_BUFFER) {
+                    buffer.clear();
+                    buffers.offer(buffer);
+                }
+            });
+            if (!lines) out.write(']');
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static void encode(ObjectMapper mapper, Function<Object, ObjectWriter> writers, List<Object> values,
+                               ChunkBuffer buffer, boolean lines, JSONStreams.Policy policy) throws IOException {
+        JsonGenerator generator = generator(mapper, buffer);
+        for (Object value : values) {
+            int mark = buffer.size();
+            try {
+                if (!lines && buffer.elements > 0) buffer.write(',');
+                write(writers, generator, buffer, value);
+            } catch (IOException e) {
+                String operation = lines ? "write2lines" : "write2array";
+                if (policy == JSONStreams.Policy.THROW) throw JSONUtils.exceptionHandleNonnull(operation, value, e);
+                JSONUtils.exceptionHandleNullable(operation, value, e);
+                // the generator may have stopped inside the failed value, drop both
+                buffer.truncate(mark);
+                generator = generator(mapper, buffer);
+                if (policy == JSONStreams.Policy.SKIP) continue;
+                if (!lines && buffer.elements > 0) buffer.write(',');
+                write(writers, generator, buffer, null);
+            }
+            if (lines) buffer.write('\n');
+            buffer.elements++;
+        }
+        generator.close();
+    }
+
+    private static void write(Function<Object, ObjectWriter> writers, JsonGenerator generator, ChunkBuffer buffer, Object value) throws IOException {
+        if (value == null) generator.writeNull();
+        else if (value instanceof String) generator.writeRawValue((String) value);
+        else writers.apply(value).writeValue(generator, value);
+        generator.flush();
+    }
+
+    private static JsonGenerator generator(ObjectMapper mapper, ChunkBuffer buffer) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        mapper.getSerializationConfig().initialize(generator);
+        return generator;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size) {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        try {
+            while (position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) return size;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') return position + i + 1;
+                }
+                position += read;
+            }
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> long decodeLines(JSONCodec<T> codec, ByteBuffer buffer, Consumer<? super T> sink, JSONStreams.Policy policy) {
+        ObjectReader reader = codec.reader();
+        long count = 0;
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            if (!isBlank(buffer, lineStart, lineEnd)) {
+                ByteBuffer line = buffer.duplicate();
+                line.limit(lineEnd);
+                line.position(lineStart);
+                try {
+                    sink.accept(reader.<T>readValue(new ByteBufferBackedInputStream(line)));
+                    count++;
+                } catch (IOException e) {
+                    if (policy == JSONStreams.Policy.THROW) throw JSONUtils.exceptionHandleNonnull("read2linesParallel", codec.getType(), e);
+                    T value = JSONUtils.exceptionHandleNullable("read2linesParallel", codec.getType(), e);
+                    if (policy == JSONStreams.Policy.NULL) {
+                        sink.accept(value);
+                        count++;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return count;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    private static class Chunk<T> {
+        private final List<T> values;
+        private final long count;
+
+        Chunk(List<T> values, long count) {
+            this.values = values;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Reusable output buffer of one chunk, knows how many elements it holds and can drop a partly written one
+     */
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+        private int elements;
+
+        ChunkBuffer() {
+            super(8192);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+
+        void clear() {
+            reset();
+            elements = 0;
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h3>JSON Pointer projection over a token stream</h3>
+ *
+ * <p>Walks the parser down the requested paths only, subtrees no path goes through are skipped without being bound,
+ * and parsing stops as soon as every path is resolved. The first occurrence wins when a property is repeated</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class JSONPaths {
+
+    private JSONPaths() {
+    }
+
+    /**
+     * Binds the value at the pointer
+     *
+     * @param parser a parser that has not been advanced yet
+     * @return the bound value, {@code null} when there is no value at the pointer
+     */
+    static <T> T read(JsonParser parser, JsonPointer pointer, ObjectReader reader) throws IOException {
+        if (parser.nextToken() == null) return null;
+        for (JsonPointer remaining = pointer; !remaining.matches(); remaining = remaining.tail()) {
+            if (!descend(parser, remaining)) return null;
+        }
+        return reader.readValue(parser);
+    }
+
+    /**
+     * Reads the values at all the pointers in one pass
+     *
+     * @param parser a parser that has not been advanced yet
+     * @return the values found, in the order of the pointers, pointers without a value are left out
+     */
+    static Map<String, JsonNode> readAll(ObjectMapper mapper, JsonParser parser, String... pointers) throws IOException {
+        Node root = new Node(null, 0);
+        for (String pointer : new LinkedHashSet<>(Arrays.asList(pointers))) {
+            root.add(JsonPointer.compile(pointer), pointer);
+        }
+        Map<String, JsonNode> found = new HashMap<>();
+        if (parser.nextToken() != null) walk(mapper, parser, root, root, found);
+
+        Map<String, JsonNode> values = new LinkedHashMap<>();
+        for (String pointer : pointers) {
+            JsonNode value = found.get(pointer);
+            if (value != null) values.put(pointer, value);
+        }
+        return values;
+    }
+
+    /**
+     * Moves the parser from the start of a container to the value of the pointer's first segment
+     *
+     * @return {@code false} if the container has no such property or element
+     */
+    private static boolean descend(JsonParser parser, JsonPointer pointer) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            String property = pointer.getMatchingProperty();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean matches = property.equals(parser.getCurrentName());
+                parser.nextToken();
+                if (matches) return true;
+                parser.skipChildren();
+            }
+        } else if (token == JsonToken.START_ARRAY && pointer.mayMatchElement()) {
+            int index = pointer.getMatchingIndex();
+            for (int i = 0; (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null; i++) {
+                if (i == index) return true;
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the paths below the node, the parser is left on the last token of the current value or, once every
+     * path of the root is resolved, wherever the walk stopped
+     */
+    private static void walk(ObjectMapper mapper, JsonParser parser, Node root, Node node, Map<String, JsonNode> found) throws IOException {
+        if (node.pointer != null) {
+            capture(node, mapper.readTree(parser), found);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (root.pending > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child == null || child.pending == 0) parser.skipChildren();
+                else walk(mapper, parser, root, child, found);
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            for (int i = 0; root.pending > 0 && (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null; i++) {
+                Node child = node.hasIndexes ? node.children.get(String.valueOf(i)) : null;
+                if (child == null || child.pending == 0) parser.skipChildren();
+                else walk(mapper, parser, root, child, found);
+            }
+        }
+        // whatever is still pending below this value, e.g. below a scalar, does not exist
+        if (root.pending > 0 && node.pending > 0) node.resolve(node.pending);
+    }
+
+    /**
+     * Records the value of the node and picks the values of the deeper paths out of it
+     */
+    private static void capture(Node node, JsonNode value, Map<String, JsonNode> found) {
+        found.put(node.pointer, value);
+        List<Node> descendants = new ArrayList<>();
+        node.collectTargets(descendants);
+        for (Node descendant : descendants) {
+            JsonPointer relative = descendant.jsonPointer;
+            for (int i = 0; i < node.depth; i++) {
+                relative = relative.tail();
+            }
+            JsonNode nested = value.at(relative);
+            if (!nested.isMissingNode()) found.put(descendant.pointer, nested);
+        }
+        node.resolve(node.pending);
+    }
+
+    /**
+     * Trie of pointer segments, a segment that is a valid index matches an array element as well as a property
+     */
+    private static class Node {
+        private final Node parent;
+        private final int depth;
+        private final Map<String, Node> children = new HashMap<>(4);
+        private boolean hasIndexes;
+        private String pointer;
+        private JsonPointer jsonPointer;
+        /**
+         * Requested paths at or below this node that are not resolved yet
+         */
+        private int pending;
+
+        Node(Node parent, int depth) {
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        void add(JsonPointer compiled, String text) {
+            Node node = this;
+            for (JsonPointer remaining = compiled; !remaining.matches(); remaining = remaining.tail()) {
+                Node current = node;
+                node = current.children.computeIfAbsent(remaining.getMatchingProperty(), key -> new Node(current, current.depth + 1));
+                if (remaining.getMatchingIndex() >= 0) current.hasIndexes = true;
+            }
+            node.pointer = text;
+            node.jsonPointer = compiled;
+            for (Node n = node; n != null; n = n.parent) {
+                n.pending++;
+            }
+        }
+
+        void collectTargets(List<Node> targets) {
+            for (Node child : children.values()) {
+                if (child.pointer != null) targets.add(child);
+                child.collectTargets(targets);
+            }
+        }
+
+        void resolve(int count) {
+            for (Node n = this; n != null; n = n.parent) {
+                n.pending -= count;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.springframework.util.Assert;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Bounded cache of serialized JSON</h3>
+ *
+ * <p>Keeps the JSON of objects that are serialized over and over without changing, keyed either by the identity of
+ * the object or by a key the caller derives from its version, so a hit returns the stored text without running the
+ * serializer. The entries are spread over segments that each evict their least recently used entry once full, with
+ * weak keys an identity entry goes away together with its object. Only meant for immutable objects: a cached object
+ * that is modified keeps its old JSON until it is invalidated</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class JSONSerializationCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final boolean weakKeys;
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JSONSerializationCache() {
+        this(DEFAULT_MAXIMUM_SIZE, true);
+    }
+
+    /**
+     * @param maximumSize entries kept at most, rounded up to a multiple of the segment count
+     * @param weakKeys    whether identity entries let their object be garbage collected, the keys given by the caller
+     *                    are always held strongly
+     */
+    public JSONSerializationCache(int maximumSize, boolean weakKeys) {
+        Assert.isTrue(maximumSize > 0, "Maximum size must be positive");
+        this.weakKeys = weakKeys;
+        int segmentSize = (maximumSize + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Entries dropped to make room, entries of collected objects and invalidated ones are not counted
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getSize() {
+        expunge();
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops the entry of the object cached by identity
+     */
+    public void invalidate(Object obj) {
+        if (obj == null) return;
+        remove(new IdentityLookup(obj));
+    }
+
+    /**
+     * Drops the entry cached under the key
+     */
+    public void invalidateKey(Object key) {
+        if (key == null) return;
+        remove(key);
+    }
+
+    /**
+     * Drops every entry and resets the counters
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        expunge();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    String text(Object obj, Encoder encoder) throws JsonProcessingException {
+        return entry(new IdentityLookup(obj), obj, encoder).text;
+    }
+
+    String text(Object key, Object obj, Encoder encoder) throws JsonProcessingException {
+        return entry(key, obj, encoder).text;
+    }
+
+    byte[] bytes(Object obj, Encoder encoder) throws JsonProcessingException {
+        return entry(new IdentityLookup(obj), obj, encoder).bytes().clone();
+    }
+
+    byte[] bytes(Object key, Object obj, Encoder encoder) throws JsonProcessingException {
+        return entry(key, obj, encoder).bytes().clone();
+    }
+
+    private Encoded entry(Object key, Object obj, Encoder encoder) throws JsonProcessingException {
+        Segment segment = segmentFor(key);
+        Encoded entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        // encoded outside the lock, concurrent misses on one key may both encode and the first one stored is kept,
+        // an identity key compares by reference, so a second one for the same object would never be hit again
+        Encoded encoded = new Encoded(encoder.encode(obj));
+        expunge();
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null) return entry;
+            segment.put(key instanceof IdentityLookup ? new IdentityKey(obj, collected, weakKeys) : key, encoded);
+        }
+        return encoded;
+    }
+
+    private void remove(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            remove(reference);
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    @FunctionalInterface
+    interface Encoder {
+        String encode(Object obj) throws JsonProcessingException;
+    }
+
+    private static final class Encoded {
+        private final String text;
+        private volatile byte[] bytes;
+
+        Encoded(String text) {
+            this.text = text;
+        }
+
+        byte[] bytes() {
+            byte[] encoded = bytes;
+            if (encoded == null) bytes = encoded = text.getBytes(StandardCharsets.UTF_8);
+            return encoded;
+        }
+    }
+
+    /**
+     * Stored key of an identity entry, a cleared one is only found again by itself when it is expunged
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+        /**
+         * Holds the object when the keys are not weak
+         */
+        private final Object strong;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue, boolean weak) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+            this.strong = weak ? null : referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+    }
+
+    /**
+     * Looks up the identity entry of an object, the map compares the lookup with the stored keys, never the reverse
+     */
+    private static final class IdentityLookup {
+        private final Object referent;
+
+        IdentityLookup(Object referent) {
+            this.referent = referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).get() == referent;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<Object, Encoded> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Encoded> eldest) {
+            if (size() <= maximumSize) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <h3>Lazy readers over a sequence of JSON values</h3>
+ *
+ * <p>Elements are bound one at a time, so memory use does not depend on the size of the input. A failed element is
+ * handled by the {@link Policy} of the calling {@link JSONUtils} variant, the following elements are still read</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class JSONStreams {
+
+    private JSONStreams() {
+    }
+
+    /**
+     * What happens to an element that can not be bound, mirrors the Optional, Nullable and Nonnull method variants
+     */
+    enum Policy {
+        /**
+         * Log and skip the element
+         */
+        SKIP,
+        /**
+         * Log and return {@code null} in place of the element
+         */
+        NULL,
+        /**
+         * Throw {@link IllegalArgumentException}
+         */
+        THROW
+    }
+
+    /**
+     * Elements of a root-level array, or root-level values separated by whitespace
+     */
+    static <T> Stream<T> values(JSONCodec<T> codec, InputStream in, Policy policy, Closeable resource) throws IOException {
+        MappingIterator<T> iterator = codec.reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE).readValues(in);
+        return stream(new ValueIterator<>(iterator, codec.getType(), policy, resource));
+    }
+
+    /**
+     * One value per line (JSON Lines / NDJSON), a malformed line only fails its own element
+     */
+    static <T> Stream<T> lines(JSONCodec<T> codec, InputStream in, Policy policy, Closeable resource) {
+        return stream(new LineIterator<>(codec, in, policy, resource));
+    }
+
+    private static <T> Stream<T> stream(ElementIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::closeQuietly);
+    }
+
+    static boolean isBlank(byte[] bytes, int offset, int len) {
+        for (int i = offset; i < offset + len; i++) {
+            byte b = bytes[i];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') return false;
+        }
+        return true;
+    }
+
+    private abstract static class ElementIterator<T> implements Iterator<T>, Closeable {
+        private final String operation;
+        private final JavaType type;
+        private final Policy policy;
+        private final Closeable resource;
+        private T next;
+        private boolean ready;
+        private boolean done;
+
+        /**
+         * @param operation the {@link JSONUtils} method the failures are recorded under
+         */
+        ElementIterator(String operation, JavaType type, Policy policy, Closeable resource) {
+            this.operation = operation;
+            this.type = type;
+            this.policy = policy;
+            this.resource = resource;
+        }
+
+        /**
+         * Moves to the next element, a failure here means the input can not be read any further
+         *
+         * @return {@code false} when the input is exhausted
+         */
+        protected abstract boolean advance() throws IOException;
+
+        /**
+         * Binds the element {@link #advance()} moved to
+         */
+        protected abstract T current() throws IOException;
+
+        /**
+         * Whether a failure of {@link #current()} only affects the current element
+         */
+        protected boolean isElementFailure(IOException e) {
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && !done) {
+                try {
+                    if (!advance()) {
+                        done = true;
+                        break;
+                    }
+                } catch (IOException e) {
+                    onInputFailed(e);
+                    break;
+                }
+                try {
+                    next = current();
+                    ready = true;
+                } catch (IOException e) {
+                    if (isElementFailure(e)) onElementFailed(e);
+                    else onInputFailed(e);
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            T value = next;
+            next = null;
+            ready = false;
+            return value;
+        }
+
+        private void onInputFailed(IOException e) {
+            done = true;
+            if (policy == Policy.THROW) throw JSONUtils.exceptionHandleNonnull(operation, type, e);
+            JSONUtils.exceptionHandleNullable(operation, type, e);
+        }
+
+        private void onElementFailed(IOException e) {
+            if (policy == Policy.THROW) throw JSONUtils.exceptionHandleNonnull(operation, type, e);
+            JSONUtils.exceptionHandleNullable(operation, type, e);
+            if (policy == Policy.NULL) {
+                next = null;
+                ready = true;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            if (resource != null) resource.close();
+        }
+
+        void closeQuietly() {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class ValueIterator<T> extends ElementIterator<T> {
+        private final MappingIterator<T> iterator;
+
+        ValueIterator(MappingIterator<T> iterator, JavaType type, Policy policy, Closeable resource) {
+            super("read2stream", type, policy, resource);
+            this.iterator = iterator;
+        }
+
+        @Override
+        protected boolean advance() throws IOException {
+            return iterator.hasNextValue();
+        }
+
+        @Override
+        protected T current() throws IOException {
+            return iterator.nextValue();
+        }
+
+        @Override
+        protected boolean isElementFailure(IOException e) {
+            return e instanceof JsonMappingException;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                iterator.close();
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    private static class LineIterator<T> extends ElementIterator<T> {
+        private final ObjectReader reader;
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+        private byte[] line = new byte[256];
+        private int length;
+
+        LineIterator(JSONCodec<T> codec, InputStream in, Policy policy, Closeable resource) {
+            super("read2lines", codec.getType(), policy, resource);
+            this.reader = codec.reader();
+            this.in = in;
+        }
+
+        @Override
+        protected boolean advance() throws IOException {
+            do {
+                if (!readLine()) return false;
+            } while (isBlank(line, 0, length));
+            return true;
+        }
+
+        @Override
+        protected T current() throws IOException {
+            return reader.readValue(line, 0, length);
+        }
+
+        private boolean readLine() throws IOException {
+            length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return length > 0;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                append(start, position - start);
+                if (position < limit) {
+                    position++;
+                    return true;
+                }
+            }
+        }
+
+        private void append(int offset, int len) {
+            if (length + len > line.length) line = Arrays.copyOf(line, Math.max(line.length * 2, length + len));
+            System.arraycopy(buffer, offset, line, length, len);
+            length += len;
+        }
+    }
+
+}
@@ -1,12 +1,23 @@
 package cn.bebullish.common.toolkit.utils;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.ser.std.DateSerializer;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedOutputStream;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -18,17 +29,42 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -45,7 +81,14 @@ import static com.fasterxml.jackson.databind.deser.std.DateDeserializers.DateDes
 @Slf4j
 public class JSONUtils {
 
-    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JSONBufferPool BUFFER_POOL = new JSONBufferPool(JSONBufferPool.Strategy.POOLED);
+    private static final JSONErrors ERRORS = new JSONErrors();
+
+    /**
+     * Shared mapper behind every method of this class. Most of them go through cached codecs that snapshot its
+     * configuration, call {@link #clearCodecs()} after reconfiguring it
+     */
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(BUFFER_POOL.newFactory());
     public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
     public static final String DATE_PATTERN = "yyyy-MM-dd";
     public static final String TIME_PATTERN = "HH:mm:ss";
@@ -53,39 +96,30 @@ public class JSONUtils {
     public static final MapTypeReference MAP_TYPE = new MapTypeReference();
     public static final ListMapTypeReference LIST_MAP_TYPE = new ListMapTypeReference();
 
+    private static final int CODEC_CACHE_CAPACITY = 1024;
+    private static final Map<DataFormat, CodecCache> CODEC_CACHES = new EnumMap<>(DataFormat.class);
+    private static final Map<DataFormat, ObjectMapper> MAPPERS = new ConcurrentHashMap<>();
+    private static final String[] ACCELERATOR_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+    private static volatile Module accelerator;
+    private static volatile JSONSerializationCache serializationCache = new JSONSerializationCache();
+
     static {
-        // 对象的所有字段全部列入
-        OBJECT_MAPPER.setSerializationInclusion(JsonInclude.Include.ALWAYS);
-        // 取消默认转换 timestamps 形式
-        OBJECT_MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        // 配置日期转换
-        JavaTimeModule javaTimeModule = new JavaTimeModule();
-        // Date
-        javaTimeModule.addSerializer(Date.class, new DateSerializer(false, new SimpleDateFormat(DATE_TIME_PATTERN)));
-        javaTimeModule.addDeserializer(Date.class, new DateDeserializer(new DateDeserializer(), new SimpleDateFormat(DATE_TIME_PATTERN), DATE_TIME_PATTERN));
-        // LocalDateTime
-        javaTimeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN)));
-        javaTimeModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN)));
-        // LocalDate
-        javaTimeModule.addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ofPattern(DATE_PATTERN)));
-        javaTimeModule.addDeserializer(LocalDate.class, new LocalDateDeserializer(DateTimeFormatter.ofPattern(DATE_PATTERN)));
-        // LocalTime
-        javaTimeModule.addSerializer(LocalTime.class, new LocalTimeSerializer(DateTimeFormatter.ofPattern(TIME_PATTERN)));
-        javaTimeModule.addDeserializer(LocalTime.class, new LocalTimeDeserializer(DateTimeFormatter.ofPattern(TIME_PATTERN)));
-        OBJECT_MAPPER.registerModule(javaTimeModule);
-        // 忽略空 Bean 转 json 的错误
-        OBJECT_MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        // 忽略在 json 字符串中存在，但是在 java 对象中不存在对应属性的情况。防止错误
-        OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        configure(OBJECT_MAPPER);
+        for (DataFormat format : DataFormat.values()) {
+            CODEC_CACHES.put(format, new CodecCache());
+        }
     }
 
     @NonNull
     public static <T> String write2strNonnull(@NonNull T obj) {
         Assert.notNull(obj, "origin object must not be null");
         try {
-            return obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
+            return write(obj);
         } catch (JsonProcessingException e) {
-            throw exceptionHandleNonnull(e);
+            throw exceptionHandleNonnull("write2strNonnull", obj, e);
         }
     }
 
@@ -96,10 +130,9 @@ public class JSONUtils {
         Assert.notNull(cls, "Target class must not be null");
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return cls.equals(String.class) ? (T) str : OBJECT_MAPPER.readValue(str, cls);
-        } catch (JsonProcessingException e) {
-            throw exceptionHandleNonnull(e);
+            return cls.equals(String.class) ? (T) write(obj) : read(obj, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
         }
     }
 
@@ -119,10 +152,9 @@ public class JSONUtils {
         Assert.notNull(typeReference, "Target class must not be null");
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return OBJECT_MAPPER.readValue(str, typeReference);
-        } catch (JsonProcessingException e) {
-            throw exceptionHandleNonnull(e);
+            return read(obj, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
         }
     }
 
@@ -131,9 +163,9 @@ public class JSONUtils {
         if (Objects.isNull(obj)) return null;
 
         try {
-            return obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
+            return write(obj);
         } catch (JsonProcessingException e) {
-            return exceptionHandleNullable(e);
+            return exceptionHandleNullable("write2strNullable", obj, e);
         }
     }
 
@@ -143,10 +175,9 @@ public class JSONUtils {
         if (Objects.isNull(obj) || Objects.isNull(cls)) return null;
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return cls.equals(String.class) ? (T) str : OBJECT_MAPPER.readValue(str, cls);
-        } catch (JsonProcessingException e) {
-            return exceptionHandleNullable(e);
+            return cls.equals(String.class) ? (T) write(obj) : read(obj, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
         }
     }
 
@@ -165,10 +196,9 @@ public class JSONUtils {
         if (Objects.isNull(obj) || Objects.isNull(typeReference)) return null;
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return OBJECT_MAPPER.readValue(str, typeReference);
-        } catch (JsonProcessingException e) {
-            return exceptionHandleNullable(e);
+            return read(obj, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
         }
     }
 
@@ -176,9 +206,9 @@ public class JSONUtils {
         if (Objects.isNull(obj)) return Optional.empty();
 
         try {
-            return Optional.ofNullable(obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj));
+            return Optional.ofNullable(write(obj));
         } catch (JsonProcessingException e) {
-            return exceptionHandle(e);
+            return exceptionHandle("write2str", obj, e);
         }
     }
 
@@ -187,10 +217,9 @@ public class JSONUtils {
         if (Objects.isNull(obj) || Objects.isNull(cls)) return Optional.empty();
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return Optional.ofNullable(cls.equals(String.class) ? (T) str : OBJECT_MAPPER.readValue(str, cls));
-        } catch (JsonProcessingException e) {
-            return exceptionHandle(e);
+            return Optional.ofNullable(cls.equals(String.class) ? (T) write(obj) : read(obj, OBJECT_MAPPER.constructType(cls)));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
         }
     }
 
@@ -206,33 +235,1870 @@ public class JSONUtils {
         if (Objects.isNull(obj) || Objects.isNull(typeReference)) return Optional.empty();
 
         try {
-            String str = obj instanceof String ? (String) obj : OBJECT_MAPPER.writeValueAsString(obj);
-            return Optional.ofNullable(OBJECT_MAPPER.readValue(str, typeReference));
+            return Optional.ofNullable(read(obj, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> byte[] write2bytesNonnull(@NonNull T obj) {
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return writeBytes(obj);
         } catch (JsonProcessingException e) {
-            return exceptionHandle(e);
+            throw exceptionHandleNonnull("write2bytesNonnull", obj, e);
         }
     }
 
-    protected static <T> Optional<T> exceptionHandle(Exception e) {
-        String method = Thread.currentThread().getStackTrace()[1].getMethodName();
-        log(method, e.getMessage());
-        return Optional.empty();
+    public static <T> void writeToNonnull(@NonNull T obj, @NonNull OutputStream out) {
+        Assert.notNull(obj, "origin object must not be null");
+        Assert.notNull(out, "Target stream must not be null");
+        try {
+            write(obj, out);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("writeToNonnull", obj, e);
+        }
     }
 
-    protected static <T> T exceptionHandleNullable(Exception e) {
-        String method = Thread.currentThread().getStackTrace()[1].getMethodName();
-        log(method, e.getMessage());
-        return null;
+    public static <T> void writeToNonnull(@NonNull T obj, @NonNull ByteBuffer buffer) {
+        Assert.notNull(obj, "origin object must not be null");
+        Assert.notNull(buffer, "Target buffer must not be null");
+        try {
+            write(obj, buffer);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("writeToNonnull", obj, e);
+        }
     }
 
-    protected static IllegalArgumentException exceptionHandleNonnull(Exception e) {
-        String method = Thread.currentThread().getStackTrace()[1].getMethodName();
-        log(method, e.getMessage());
-        return new IllegalArgumentException(e.getMessage());
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <T> T read2clsNonnull(@NonNull byte[] bytes, @NonNull Class<T> cls) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return cls.equals(String.class) ? (T) new String(bytes, StandardCharsets.UTF_8) : read(bytes, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2clsNonnull(@NonNull InputStream in, @NonNull Class<T> cls) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return read(in, cls);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2clsNonnull(@NonNull ReadableByteChannel channel, @NonNull Class<T> cls) {
+        Assert.notNull(channel, "Origin channel must not be null");
+        return read2clsNonnull(Channels.newInputStream(channel), cls);
+    }
+
+    @NonNull
+    public static <T> T read2clsNonnull(@NonNull Path path, @NonNull Class<T> cls) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, cls);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull byte[] bytes, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull InputStream in, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull ReadableByteChannel channel, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(channel, "Origin channel must not be null");
+        return read2typeReferenceNonnull(Channels.newInputStream(channel), typeReference);
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull Path path, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> byte[] write2bytesNullable(@Nullable T obj) {
+        if (Objects.isNull(obj)) return null;
+
+        try {
+            return writeBytes(obj);
+        } catch (JsonProcessingException e) {
+            return exceptionHandleNullable("write2bytesNullable", obj, e);
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> T read2clsNullable(@Nullable byte[] bytes, @Nullable Class<T> cls) {
+        if (Objects.isNull(bytes) || Objects.isNull(cls)) return null;
+
+        try {
+            return cls.equals(String.class) ? (T) new String(bytes, StandardCharsets.UTF_8) : read(bytes, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2clsNullable(@Nullable InputStream in, @Nullable Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return null;
+
+        try {
+            return read(in, cls);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2clsNullable(@Nullable ReadableByteChannel channel, @Nullable Class<T> cls) {
+        return Objects.isNull(channel) ? null : read2clsNullable(Channels.newInputStream(channel), cls);
+    }
+
+    @Nullable
+    public static <T> T read2clsNullable(@Nullable Path path, @Nullable Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return null;
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, cls);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable byte[] bytes, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(bytes) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable InputStream in, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable ReadableByteChannel channel, @Nullable TypeReference<T> typeReference) {
+        return Objects.isNull(channel) ? null : read2typeReferenceNullable(Channels.newInputStream(channel), typeReference);
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable Path path, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return null;
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<byte[]> write2bytes(T obj) {
+        if (Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(writeBytes(obj));
+        } catch (JsonProcessingException e) {
+            return exceptionHandle("write2bytes", obj, e);
+        }
+    }
+
+    public static <T> boolean writeTo(T obj, OutputStream out) {
+        if (Objects.isNull(obj) || Objects.isNull(out)) return false;
+
+        try {
+            write(obj, out);
+            return true;
+        } catch (IOException e) {
+            exceptionHandle("writeTo", obj, e);
+            return false;
+        }
+    }
+
+    public static <T> boolean writeTo(T obj, ByteBuffer buffer) {
+        if (Objects.isNull(obj) || Objects.isNull(buffer)) return false;
+
+        try {
+            write(obj, buffer);
+            return true;
+        } catch (IOException e) {
+            exceptionHandle("writeTo", obj, e);
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<T> read2cls(byte[] bytes, Class<T> cls) {
+        if (Objects.isNull(bytes) || Objects.isNull(cls)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(cls.equals(String.class) ? (T) new String(bytes, StandardCharsets.UTF_8) : read(bytes, OBJECT_MAPPER.constructType(cls)));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> read2cls(InputStream in, Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(in, cls));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> read2cls(ReadableByteChannel channel, Class<T> cls) {
+        return Objects.isNull(channel) ? Optional.empty() : read2cls(Channels.newInputStream(channel), cls);
+    }
+
+    public static <T> Optional<T> read2cls(Path path, Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return Optional.empty();
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return Optional.ofNullable(read(in, cls));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> read2typeReference(byte[] bytes, TypeReference<T> typeReference) {
+        if (Objects.isNull(bytes) || Objects.isNull(typeReference)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<T> read2typeReference(InputStream in, TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<T> read2typeReference(ReadableByteChannel channel, TypeReference<T> typeReference) {
+        return Objects.isNull(channel) ? Optional.empty() : read2typeReference(Channels.newInputStream(channel), typeReference);
+    }
+
+    public static <T> Optional<T> read2typeReference(Path path, TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return Optional.empty();
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return Optional.ofNullable(read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    /*
+     * DataFormat variants: the byte and stream methods in any format, a String is taken as and returned as JSON text,
+     * so a binary format transcodes it
+     */
+    @NonNull
+    public static ObjectMapper mapper(@NonNull DataFormat format) {
+        Assert.notNull(format, "Data format must not be null");
+        if (format == DataFormat.JSON) return OBJECT_MAPPER;
+        ObjectMapper mapper = MAPPERS.get(format);
+        return mapper != null ? mapper : createMapper(format);
+    }
+
+    @NonNull
+    public static <T> byte[] write2bytesNonnull(@NonNull T obj, @NonNull DataFormat format) {
+        Assert.notNull(obj, "origin object must not be null");
+        Assert.notNull(format, "Data format must not be null");
+        try {
+            return writeBytes(obj, format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("write2bytesNonnull", obj, e);
+        }
+    }
+
+    public static <T> void writeToNonnull(@NonNull T obj, @NonNull OutputStream out, @NonNull DataFormat format) {
+        Assert.notNull(obj, "origin object must not be null");
+        Assert.notNull(out, "Target stream must not be null");
+        Assert.notNull(format, "Data format must not be null");
+        try {
+            write(obj, out, format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("writeToNonnull", obj, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2clsNonnull(@NonNull byte[] bytes, @NonNull Class<T> cls, @NonNull DataFormat format) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+
+        try {
+            return read(bytes, cls, format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull byte[] bytes, @NonNull TypeReference<T> typeReference, @NonNull DataFormat format) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+
+        try {
+            return read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2clsNonnull(@NonNull InputStream in, @NonNull Class<T> cls, @NonNull DataFormat format) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+
+        try {
+            return read(in, cls, format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2clsNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T read2typeReferenceNonnull(@NonNull InputStream in, @NonNull TypeReference<T> typeReference, @NonNull DataFormat format) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+
+        try {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2typeReferenceNonnull", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> byte[] write2bytesNullable(@Nullable T obj, @Nullable DataFormat format) {
+        if (Objects.isNull(obj) || Objects.isNull(format)) return null;
+
+        try {
+            return writeBytes(obj, format);
+        } catch (IOException e) {
+            return exceptionHandleNullable("write2bytesNullable", obj, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2clsNullable(@Nullable byte[] bytes, @Nullable Class<T> cls, @Nullable DataFormat format) {
+        if (Objects.isNull(bytes) || Objects.isNull(cls) || Objects.isNull(format)) return null;
+
+        try {
+            return read(bytes, cls, format);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable byte[] bytes, @Nullable TypeReference<T> typeReference, @Nullable DataFormat format) {
+        if (Objects.isNull(bytes) || Objects.isNull(typeReference) || Objects.isNull(format)) return null;
+
+        try {
+            return read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2clsNullable(@Nullable InputStream in, @Nullable Class<T> cls, @Nullable DataFormat format) {
+        if (Objects.isNull(in) || Objects.isNull(cls) || Objects.isNull(format)) return null;
+
+        try {
+            return read(in, cls, format);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2clsNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T read2typeReferenceNullable(@Nullable InputStream in, @Nullable TypeReference<T> typeReference, @Nullable DataFormat format) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference) || Objects.isNull(format)) return null;
+
+        try {
+            return read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2typeReferenceNullable", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<byte[]> write2bytes(T obj, DataFormat format) {
+        if (Objects.isNull(obj) || Objects.isNull(format)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(writeBytes(obj, format));
+        } catch (IOException e) {
+            return exceptionHandle("write2bytes", obj, e);
+        }
     }
 
-    private static void log(String methodName, String errorMessage) {
-        Logs.labels("JsonProcessingException").error("{} method failed, message : {}", methodName, errorMessage);
+    public static <T> boolean writeTo(T obj, OutputStream out, DataFormat format) {
+        if (Objects.isNull(obj) || Objects.isNull(out) || Objects.isNull(format)) return false;
+
+        try {
+            write(obj, out, format);
+            return true;
+        } catch (IOException e) {
+            exceptionHandle("writeTo", obj, e);
+            return false;
+        }
+    }
+
+    public static <T> Optional<T> read2cls(byte[] bytes, Class<T> cls, DataFormat format) {
+        if (Objects.isNull(bytes) || Objects.isNull(cls) || Objects.isNull(format)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(bytes, cls, format));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> read2typeReference(byte[] bytes, TypeReference<T> typeReference, DataFormat format) {
+        if (Objects.isNull(bytes) || Objects.isNull(typeReference) || Objects.isNull(format)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(bytes, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<T> read2cls(InputStream in, Class<T> cls, DataFormat format) {
+        if (Objects.isNull(in) || Objects.isNull(cls) || Objects.isNull(format)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(in, cls, format));
+        } catch (IOException e) {
+            return exceptionHandle("read2cls", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> read2typeReference(InputStream in, TypeReference<T> typeReference, DataFormat format) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference) || Objects.isNull(format)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(read(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format));
+        } catch (IOException e) {
+            return exceptionHandle("read2typeReference", typeReference, e);
+        }
+    }
+
+    /*
+     * read2stream: lazily binds the elements of a root-level array, or root-level values separated by whitespace
+     * read2lines: lazily binds one value per line (JSON Lines / NDJSON)
+     * Failed elements are skipped (Optional variant), returned as null (Nullable) or thrown (Nonnull),
+     * closing the stream releases the parser, an InputStream argument is left open for the caller
+     */
+    @NonNull
+    public static <T> Stream<T> read2streamNonnull(@NonNull InputStream in, @NonNull Class<T> cls) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.THROW, false);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2streamNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2streamNonnull(@NonNull Path path, @NonNull Class<T> cls) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.THROW, false);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2streamNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2streamNonnull(@NonNull InputStream in, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.THROW, false);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2streamNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2streamNonnull(@NonNull Path path, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.THROW, false);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2streamNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2linesNonnull(@NonNull InputStream in, @NonNull Class<T> cls) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.THROW, true);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2linesNonnull(@NonNull Path path, @NonNull Class<T> cls) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.THROW, true);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2linesNonnull(@NonNull InputStream in, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(in, "Origin stream must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.THROW, true);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> Stream<T> read2linesNonnull(@NonNull Path path, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.THROW, true);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesNonnull", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2streamNullable(@Nullable InputStream in, @Nullable Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return null;
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.NULL, false);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2streamNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2streamNullable(@Nullable Path path, @Nullable Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return null;
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.NULL, false);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2streamNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2streamNullable(@Nullable InputStream in, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.NULL, false);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2streamNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2streamNullable(@Nullable Path path, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.NULL, false);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2streamNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2linesNullable(@Nullable InputStream in, @Nullable Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return null;
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.NULL, true);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2linesNullable(@Nullable Path path, @Nullable Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return null;
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.NULL, true);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2linesNullable(@Nullable InputStream in, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.NULL, true);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Stream<T> read2linesNullable(@Nullable Path path, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.NULL, true);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesNullable", typeReference, e);
+        }
+    }
+
+    public static <T> Stream<T> read2stream(InputStream in, Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return Stream.empty();
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.SKIP, false);
+        } catch (IOException e) {
+            exceptionHandle("read2stream", cls, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2stream(Path path, Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return Stream.empty();
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.SKIP, false);
+        } catch (IOException e) {
+            exceptionHandle("read2stream", cls, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2stream(InputStream in, TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return Stream.empty();
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.SKIP, false);
+        } catch (IOException e) {
+            exceptionHandle("read2stream", typeReference, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2stream(Path path, TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return Stream.empty();
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.SKIP, false);
+        } catch (IOException e) {
+            exceptionHandle("read2stream", typeReference, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2lines(InputStream in, Class<T> cls) {
+        if (Objects.isNull(in) || Objects.isNull(cls)) return Stream.empty();
+
+        try {
+            return stream(in, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.SKIP, true);
+        } catch (IOException e) {
+            exceptionHandle("read2lines", cls, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2lines(Path path, Class<T> cls) {
+        if (Objects.isNull(path) || Objects.isNull(cls)) return Stream.empty();
+
+        try {
+            return stream(path, OBJECT_MAPPER.constructType(cls), JSONStreams.Policy.SKIP, true);
+        } catch (IOException e) {
+            exceptionHandle("read2lines", cls, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2lines(InputStream in, TypeReference<T> typeReference) {
+        if (Objects.isNull(in) || Objects.isNull(typeReference)) return Stream.empty();
+
+        try {
+            return stream(in, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.SKIP, true);
+        } catch (IOException e) {
+            exceptionHandle("read2lines", typeReference, e);
+            return Stream.empty();
+        }
+    }
+
+    public static <T> Stream<T> read2lines(Path path, TypeReference<T> typeReference) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference)) return Stream.empty();
+
+        try {
+            return stream(path, OBJECT_MAPPER.getTypeFactory().constructType(typeReference), JSONStreams.Policy.SKIP, true);
+        } catch (IOException e) {
+            exceptionHandle("read2lines", typeReference, e);
+            return Stream.empty();
+        }
+    }
+
+    /*
+     * readPath: binds only the value at a JSON Pointer (RFC 6901), e.g. "/order/id" or "/items/0/sku"
+     * readPaths: reads the values at several pointers in one pass, pointers without a value are left out of the map
+     * Both skip the subtrees no pointer goes through and stop parsing once every pointer is resolved
+     */
+    @NonNull
+    public static <T> T readPathNonnull(@NonNull String json, @NonNull String pointer, @NonNull Class<T> cls) {
+        Assert.notNull(json, "Origin json must not be null");
+        Assert.notNull(pointer, "Pointer must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            T value = project(json, pointer, OBJECT_MAPPER.constructType(cls));
+            if (value == null) throw new JsonMappingException(null, "No value at " + pointer);
+            return value;
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T readPathNonnull(@NonNull String json, @NonNull String pointer, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(json, "Origin json must not be null");
+        Assert.notNull(pointer, "Pointer must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            T value = project(json, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+            if (value == null) throw new JsonMappingException(null, "No value at " + pointer);
+            return value;
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T readPathNonnull(@NonNull byte[] bytes, @NonNull String pointer, @NonNull Class<T> cls) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(pointer, "Pointer must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+
+        try {
+            T value = project(bytes, pointer, OBJECT_MAPPER.constructType(cls));
+            if (value == null) throw new JsonMappingException(null, "No value at " + pointer);
+            return value;
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathNonnull", cls, e);
+        }
+    }
+
+    @NonNull
+    public static <T> T readPathNonnull(@NonNull byte[] bytes, @NonNull String pointer, @NonNull TypeReference<T> typeReference) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.notNull(pointer, "Pointer must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+
+        try {
+            T value = project(bytes, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+            if (value == null) throw new JsonMappingException(null, "No value at " + pointer);
+            return value;
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathNonnull", typeReference, e);
+        }
+    }
+
+    @NonNull
+    public static Map<String, JsonNode> readPathsNonnull(@NonNull String json, @NonNull String... pointers) {
+        Assert.notNull(json, "Origin json must not be null");
+        Assert.noNullElements(pointers, "Pointers must not be null");
+
+        try {
+            return projectAll(json, pointers);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathsNonnull", null, e);
+        }
+    }
+
+    @NonNull
+    public static Map<String, JsonNode> readPathsNonnull(@NonNull byte[] bytes, @NonNull String... pointers) {
+        Assert.notNull(bytes, "Origin bytes must not be null");
+        Assert.noNullElements(pointers, "Pointers must not be null");
+
+        try {
+            return projectAll(bytes, pointers);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("readPathsNonnull", null, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T readPathNullable(@Nullable String json, @Nullable String pointer, @Nullable Class<T> cls) {
+        if (Objects.isNull(json) || Objects.isNull(pointer) || Objects.isNull(cls)) return null;
+
+        try {
+            return project(json, pointer, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T readPathNullable(@Nullable String json, @Nullable String pointer, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(json) || Objects.isNull(pointer) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return project(json, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T readPathNullable(@Nullable byte[] bytes, @Nullable String pointer, @Nullable Class<T> cls) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointer) || Objects.isNull(cls)) return null;
+
+        try {
+            return project(bytes, pointer, OBJECT_MAPPER.constructType(cls));
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> T readPathNullable(@Nullable byte[] bytes, @Nullable String pointer, @Nullable TypeReference<T> typeReference) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointer) || Objects.isNull(typeReference)) return null;
+
+        try {
+            return project(bytes, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathNullable", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static Map<String, JsonNode> readPathsNullable(@Nullable String json, @Nullable String... pointers) {
+        if (Objects.isNull(json) || Objects.isNull(pointers)) return null;
+
+        try {
+            return projectAll(json, pointers);
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathsNullable", null, e);
+        }
+    }
+
+    @Nullable
+    public static Map<String, JsonNode> readPathsNullable(@Nullable byte[] bytes, @Nullable String... pointers) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointers)) return null;
+
+        try {
+            return projectAll(bytes, pointers);
+        } catch (IOException e) {
+            return exceptionHandleNullable("readPathsNullable", null, e);
+        }
+    }
+
+    public static <T> Optional<T> readPath(String json, String pointer, Class<T> cls) {
+        if (Objects.isNull(json) || Objects.isNull(pointer) || Objects.isNull(cls)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(project(json, pointer, OBJECT_MAPPER.constructType(cls)));
+        } catch (IOException e) {
+            return exceptionHandle("readPath", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> readPath(String json, String pointer, TypeReference<T> typeReference) {
+        if (Objects.isNull(json) || Objects.isNull(pointer) || Objects.isNull(typeReference)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(project(json, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("readPath", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<T> readPath(byte[] bytes, String pointer, Class<T> cls) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointer) || Objects.isNull(cls)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(project(bytes, pointer, OBJECT_MAPPER.constructType(cls)));
+        } catch (IOException e) {
+            return exceptionHandle("readPath", cls, e);
+        }
+    }
+
+    public static <T> Optional<T> readPath(byte[] bytes, String pointer, TypeReference<T> typeReference) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointer) || Objects.isNull(typeReference)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(project(bytes, pointer, OBJECT_MAPPER.getTypeFactory().constructType(typeReference)));
+        } catch (IOException e) {
+            return exceptionHandle("readPath", typeReference, e);
+        }
+    }
+
+    public static Optional<Map<String, JsonNode>> readPaths(String json, String... pointers) {
+        if (Objects.isNull(json) || Objects.isNull(pointers)) return Optional.empty();
+
+        try {
+            return Optional.of(projectAll(json, pointers));
+        } catch (IOException e) {
+            return exceptionHandle("readPaths", null, e);
+        }
+    }
+
+    public static Optional<Map<String, JsonNode>> readPaths(byte[] bytes, String... pointers) {
+        if (Objects.isNull(bytes) || Objects.isNull(pointers)) return Optional.empty();
+
+        try {
+            return Optional.of(projectAll(bytes, pointers));
+        } catch (IOException e) {
+            return exceptionHandle("readPaths", null, e);
+        }
+    }
+
+    /*
+     * write2array: writes the values as one JSON array, write2lines: as JSON Lines, one value per line
+     * Chunks of values are encoded in parallel on the pool and written in input order, the return value is the number
+     * of elements written. A value that fails is left out (Optional variant), written as null (Nullable) or fails the
+     * batch (Nonnull), output already written stays written. The stream or channel is flushed but left open
+     */
+    public static <T> long write2arrayNonnull(@NonNull Collection<T> values, @NonNull OutputStream out) {
+        Assert.notNull(values, "Origin values must not be null");
+        return write2arrayNonnull(values.stream(), out);
+    }
+
+    public static <T> long write2arrayNonnull(@NonNull Stream<T> values, @NonNull WritableByteChannel channel) {
+        Assert.notNull(channel, "Target channel must not be null");
+        return write2arrayNonnull(values, Channels.newOutputStream(channel));
+    }
+
+    public static <T> long write2arrayNonnull(@NonNull Stream<T> values, @NonNull OutputStream out) {
+        return write2arrayNonnull(values, out, ForkJoinPool.commonPool());
+    }
+
+    public static <T> long write2arrayNonnull(@NonNull Stream<T> values, @NonNull OutputStream out, @NonNull ForkJoinPool pool) {
+        Assert.notNull(values, "Origin values must not be null");
+        Assert.notNull(out, "Target stream must not be null");
+        Assert.notNull(pool, "Pool must not be null");
+
+        try {
+            return writeAll(values.iterator(), out, false, pool, JSONStreams.Policy.THROW);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("write2arrayNonnull", values, e);
+        }
+    }
+
+    public static <T> long write2linesNonnull(@NonNull Collection<T> values, @NonNull OutputStream out) {
+        Assert.notNull(values, "Origin values must not be null");
+        return write2linesNonnull(values.stream(), out);
+    }
+
+    public static <T> long write2linesNonnull(@NonNull Stream<T> values, @NonNull WritableByteChannel channel) {
+        Assert.notNull(channel, "Target channel must not be null");
+        return write2linesNonnull(values, Channels.newOutputStream(channel));
+    }
+
+    public static <T> long write2linesNonnull(@NonNull Stream<T> values, @NonNull OutputStream out) {
+        return write2linesNonnull(values, out, ForkJoinPool.commonPool());
+    }
+
+    public static <T> long write2linesNonnull(@NonNull Stream<T> values, @NonNull OutputStream out, @NonNull ForkJoinPool pool) {
+        Assert.notNull(values, "Origin values must not be null");
+        Assert.notNull(out, "Target stream must not be null");
+        Assert.notNull(pool, "Pool must not be null");
+
+        try {
+            return writeAll(values.iterator(), out, true, pool, JSONStreams.Policy.THROW);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("write2linesNonnull", values, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Long write2arrayNullable(@Nullable Collection<T> values, @Nullable OutputStream out) {
+        return Objects.isNull(values) ? null : write2arrayNullable(values.stream(), out);
+    }
+
+    @Nullable
+    public static <T> Long write2arrayNullable(@Nullable Stream<T> values, @Nullable WritableByteChannel channel) {
+        return Objects.isNull(channel) ? null : write2arrayNullable(values, Channels.newOutputStream(channel));
+    }
+
+    @Nullable
+    public static <T> Long write2arrayNullable(@Nullable Stream<T> values, @Nullable OutputStream out) {
+        return write2arrayNullable(values, out, ForkJoinPool.commonPool());
+    }
+
+    @Nullable
+    public static <T> Long write2arrayNullable(@Nullable Stream<T> values, @Nullable OutputStream out, @Nullable ForkJoinPool pool) {
+        if (Objects.isNull(values) || Objects.isNull(out) || Objects.isNull(pool)) return null;
+
+        try {
+            return writeAll(values.iterator(), out, false, pool, JSONStreams.Policy.NULL);
+        } catch (IOException e) {
+            return exceptionHandleNullable("write2arrayNullable", values, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Long write2linesNullable(@Nullable Collection<T> values, @Nullable OutputStream out) {
+        return Objects.isNull(values) ? null : write2linesNullable(values.stream(), out);
+    }
+
+    @Nullable
+    public static <T> Long write2linesNullable(@Nullable Stream<T> values, @Nullable WritableByteChannel channel) {
+        return Objects.isNull(channel) ? null : write2linesNullable(values, Channels.newOutputStream(channel));
+    }
+
+    @Nullable
+    public static <T> Long write2linesNullable(@Nullable Stream<T> values, @Nullable OutputStream out) {
+        return write2linesNullable(values, out, ForkJoinPool.commonPool());
+    }
+
+    @Nullable
+    public static <T> Long write2linesNullable(@Nullable Stream<T> values, @Nullable OutputStream out, @Nullable ForkJoinPool pool) {
+        if (Objects.isNull(values) || Objects.isNull(out) || Objects.isNull(pool)) return null;
+
+        try {
+            return writeAll(values.iterator(), out, true, pool, JSONStreams.Policy.NULL);
+        } catch (IOException e) {
+            return exceptionHandleNullable("write2linesNullable", values, e);
+        }
+    }
+
+    public static <T> Optional<Long> write2array(Collection<T> values, OutputStream out) {
+        return Objects.isNull(values) ? Optional.empty() : write2array(values.stream(), out);
+    }
+
+    public static <T> Optional<Long> write2array(Stream<T> values, WritableByteChannel channel) {
+        return Objects.isNull(channel) ? Optional.empty() : write2array(values, Channels.newOutputStream(channel));
+    }
+
+    public static <T> Optional<Long> write2array(Stream<T> values, OutputStream out) {
+        return write2array(values, out, ForkJoinPool.commonPool());
+    }
+
+    public static <T> Optional<Long> write2array(Stream<T> values, OutputStream out, ForkJoinPool pool) {
+        if (Objects.isNull(values) || Objects.isNull(out) || Objects.isNull(pool)) return Optional.empty();
+
+        try {
+            return Optional.of(writeAll(values.iterator(), out, false, pool, JSONStreams.Policy.SKIP));
+        } catch (IOException e) {
+            return exceptionHandle("write2array", values, e);
+        }
+    }
+
+    public static <T> Optional<Long> write2lines(Collection<T> values, OutputStream out) {
+        return Objects.isNull(values) ? Optional.empty() : write2lines(values.stream(), out);
+    }
+
+    public static <T> Optional<Long> write2lines(Stream<T> values, WritableByteChannel channel) {
+        return Objects.isNull(channel) ? Optional.empty() : write2lines(values, Channels.newOutputStream(channel));
+    }
+
+    public static <T> Optional<Long> write2lines(Stream<T> values, OutputStream out) {
+        return write2lines(values, out, ForkJoinPool.commonPool());
+    }
+
+    public static <T> Optional<Long> write2lines(Stream<T> values, OutputStream out, ForkJoinPool pool) {
+        if (Objects.isNull(values) || Objects.isNull(out) || Objects.isNull(pool)) return Optional.empty();
+
+        try {
+            return Optional.of(writeAll(values.iterator(), out, true, pool, JSONStreams.Policy.SKIP));
+        } catch (IOException e) {
+            return exceptionHandle("write2lines", values, e);
+        }
+    }
+
+    /*
+     * read2linesParallel: memory-maps a JSON Lines file, decodes the lines in parallel and returns the number of
+     * elements handed to the sink. With ordered the sink is called on the calling thread in file order, otherwise it is
+     * called concurrently from the pool threads and must be thread-safe
+     */
+    public static <T> long read2linesParallelNonnull(@NonNull Path path, @NonNull Class<T> cls, @NonNull Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallelNonnull(path, cls, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    public static <T> long read2linesParallelNonnull(@NonNull Path path, @NonNull Class<T> cls, @NonNull Consumer<? super T> sink, boolean ordered, @NonNull ForkJoinPool pool) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(cls, "Target class must not be null");
+        Assert.notNull(sink, "Sink must not be null");
+        Assert.notNull(pool, "Pool must not be null");
+
+        try {
+            return JSONParallel.readLines(codec(OBJECT_MAPPER.constructType(cls)), path, sink, ordered, pool, JSONStreams.Policy.THROW);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesParallelNonnull", cls, e);
+        }
+    }
+
+    public static <T> long read2linesParallelNonnull(@NonNull Path path, @NonNull TypeReference<T> typeReference, @NonNull Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallelNonnull(path, typeReference, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    public static <T> long read2linesParallelNonnull(@NonNull Path path, @NonNull TypeReference<T> typeReference, @NonNull Consumer<? super T> sink, boolean ordered, @NonNull ForkJoinPool pool) {
+        Assert.notNull(path, "Origin path must not be null");
+        Assert.notNull(typeReference, "Target class must not be null");
+        Assert.notNull(sink, "Sink must not be null");
+        Assert.notNull(pool, "Pool must not be null");
+
+        try {
+            return JSONParallel.readLines(codec(OBJECT_MAPPER.getTypeFactory().constructType(typeReference)), path, sink, ordered, pool, JSONStreams.Policy.THROW);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("read2linesParallelNonnull", typeReference, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Long read2linesParallelNullable(@Nullable Path path, @Nullable Class<T> cls, @Nullable Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallelNullable(path, cls, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    @Nullable
+    public static <T> Long read2linesParallelNullable(@Nullable Path path, @Nullable Class<T> cls, @Nullable Consumer<? super T> sink, boolean ordered, @Nullable ForkJoinPool pool) {
+        if (Objects.isNull(path) || Objects.isNull(cls) || Objects.isNull(sink) || Objects.isNull(pool)) return null;
+
+        try {
+            return JSONParallel.readLines(codec(OBJECT_MAPPER.constructType(cls)), path, sink, ordered, pool, JSONStreams.Policy.NULL);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesParallelNullable", cls, e);
+        }
+    }
+
+    @Nullable
+    public static <T> Long read2linesParallelNullable(@Nullable Path path, @Nullable TypeReference<T> typeReference, @Nullable Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallelNullable(path, typeReference, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    @Nullable
+    public static <T> Long read2linesParallelNullable(@Nullable Path path, @Nullable TypeReference<T> typeReference, @Nullable Consumer<? super T> sink, boolean ordered, @Nullable ForkJoinPool pool) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference) || Objects.isNull(sink) || Objects.isNull(pool)) return null;
+
+        try {
+            return JSONParallel.readLines(codec(OBJECT_MAPPER.getTypeFactory().constructType(typeReference)), path, sink, ordered, pool, JSONStreams.Policy.NULL);
+        } catch (IOException e) {
+            return exceptionHandleNullable("read2linesParallelNullable", typeReference, e);
+        }
+    }
+
+    public static <T> Optional<Long> read2linesParallel(Path path, Class<T> cls, Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallel(path, cls, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    public static <T> Optional<Long> read2linesParallel(Path path, Class<T> cls, Consumer<? super T> sink, boolean ordered, ForkJoinPool pool) {
+        if (Objects.isNull(path) || Objects.isNull(cls) || Objects.isNull(sink) || Objects.isNull(pool)) return Optional.empty();
+
+        try {
+            return Optional.of(JSONParallel.readLines(codec(OBJECT_MAPPER.constructType(cls)), path, sink, ordered, pool, JSONStreams.Policy.SKIP));
+        } catch (IOException e) {
+            return exceptionHandle("read2linesParallel", cls, e);
+        }
+    }
+
+    public static <T> Optional<Long> read2linesParallel(Path path, TypeReference<T> typeReference, Consumer<? super T> sink, boolean ordered) {
+        return read2linesParallel(path, typeReference, sink, ordered, ForkJoinPool.commonPool());
+    }
+
+    public static <T> Optional<Long> read2linesParallel(Path path, TypeReference<T> typeReference, Consumer<? super T> sink, boolean ordered, ForkJoinPool pool) {
+        if (Objects.isNull(path) || Objects.isNull(typeReference) || Objects.isNull(sink) || Objects.isNull(pool)) return Optional.empty();
+
+        try {
+            return Optional.of(JSONParallel.readLines(codec(OBJECT_MAPPER.getTypeFactory().constructType(typeReference)), path, sink, ordered, pool, JSONStreams.Policy.SKIP));
+        } catch (IOException e) {
+            return exceptionHandle("read2linesParallel", typeReference, e);
+        }
+    }
+
+    /*
+     * write2strCached/write2bytesCached: for immutable objects serialized repeatedly, the JSON is kept in the
+     * serialization cache keyed by the identity of the object, or by the given key which must change whenever the
+     * object does. The bytes are a copy of the cached ones
+     */
+    @NonNull
+    public static <T> String write2strCachedNonnull(@NonNull T obj) {
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return serializationCache.text(obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            throw exceptionHandleNonnull("write2strCachedNonnull", obj, e);
+        }
+    }
+
+    @Nullable
+    public static <T> String write2strCachedNullable(@Nullable T obj) {
+        if (Objects.isNull(obj)) return null;
+
+        try {
+            return serializationCache.text(obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            return exceptionHandleNullable("write2strCachedNullable", obj, e);
+        }
+    }
+
+    public static <T> Optional<String> write2strCached(T obj) {
+        if (Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(serializationCache.text(obj, JSONUtils::write));
+        } catch (JsonProcessingException e) {
+            return exceptionHandle("write2strCached", obj, e);
+        }
+    }
+
+    @NonNull
+    public static <T> String write2strCachedNonnull(@NonNull Object key, @NonNull T obj) {
+        Assert.notNull(key, "Cache key must not be null");
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return serializationCache.text(key, obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            throw exceptionHandleNonnull("write2strCachedNonnull", obj, e);
+        }
+    }
+
+    @Nullable
+    public static <T> String write2strCachedNullable(@Nullable Object key, @Nullable T obj) {
+        if (Objects.isNull(key) || Objects.isNull(obj)) return null;
+
+        try {
+            return serializationCache.text(key, obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            return exceptionHandleNullable("write2strCachedNullable", obj, e);
+        }
+    }
+
+    public static <T> Optional<String> write2strCached(Object key, T obj) {
+        if (Objects.isNull(key) || Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(serializationCache.text(key, obj, JSONUtils::write));
+        } catch (JsonProcessingException e) {
+            return exceptionHandle("write2strCached", obj, e);
+        }
+    }
+
+    @NonNull
+    public static <T> byte[] write2bytesCachedNonnull(@NonNull T obj) {
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return serializationCache.bytes(obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            throw exceptionHandleNonnull("write2bytesCachedNonnull", obj, e);
+        }
+    }
+
+    @Nullable
+    public static <T> byte[] write2bytesCachedNullable(@Nullable T obj) {
+        if (Objects.isNull(obj)) return null;
+
+        try {
+            return serializationCache.bytes(obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            return exceptionHandleNullable("write2bytesCachedNullable", obj, e);
+        }
+    }
+
+    public static <T> Optional<byte[]> write2bytesCached(T obj) {
+        if (Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(serializationCache.bytes(obj, JSONUtils::write));
+        } catch (JsonProcessingException e) {
+            return exceptionHandle("write2bytesCached", obj, e);
+        }
+    }
+
+    @NonNull
+    public static <T> byte[] write2bytesCachedNonnull(@NonNull Object key, @NonNull T obj) {
+        Assert.notNull(key, "Cache key must not be null");
+        Assert.notNull(obj, "origin object must not be null");
+        try {
+            return serializationCache.bytes(key, obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            throw exceptionHandleNonnull("write2bytesCachedNonnull", obj, e);
+        }
+    }
+
+    @Nullable
+    public static <T> byte[] write2bytesCachedNullable(@Nullable Object key, @Nullable T obj) {
+        if (Objects.isNull(key) || Objects.isNull(obj)) return null;
+
+        try {
+            return serializationCache.bytes(key, obj, JSONUtils::write);
+        } catch (JsonProcessingException e) {
+            return exceptionHandleNullable("write2bytesCachedNullable", obj, e);
+        }
+    }
+
+    public static <T> Optional<byte[]> write2bytesCached(Object key, T obj) {
+        if (Objects.isNull(key) || Objects.isNull(obj)) return Optional.empty();
+
+        try {
+            return Optional.ofNullable(serializationCache.bytes(key, obj, JSONUtils::write));
+        } catch (JsonProcessingException e) {
+            return exceptionHandle("write2bytesCached", obj, e);
+        }
+    }
+
+    @NonNull
+    public static JSONSerializationCache serializationCache() {
+        return serializationCache;
+    }
+
+    /**
+     * Replaces the serialization cache, e.g. to change its size or key strength, the entries of the previous one are
+     * not carried over
+     */
+    public static void serializationCache(@NonNull JSONSerializationCache cache) {
+        Assert.notNull(cache, "Serialization cache must not be null");
+        serializationCache = cache;
+    }
+
+    /*
+     * asyncDecoder: decodes JSON fed in chunks without blocking, the values are pushed to the subscriber as it requests
+     * them, see JSONAsyncDecoder
+     */
+    @NonNull
+    public static <T> JSONAsyncDecoder<T> asyncDecoder(@NonNull Class<T> cls, @NonNull JSONAsyncDecoder.Subscriber<? super T> subscriber) {
+        return asyncDecoder(cls, subscriber, JSONAsyncDecoder.DEFAULT_MAX_QUEUED);
+    }
+
+    @NonNull
+    public static <T> JSONAsyncDecoder<T> asyncDecoder(@NonNull Class<T> cls, @NonNull JSONAsyncDecoder.Subscriber<? super T> subscriber, int maxQueued) {
+        Assert.notNull(cls, "Target class must not be null");
+        return asyncDecoder(OBJECT_MAPPER.constructType(cls), subscriber, maxQueued);
+    }
+
+    @NonNull
+    public static <T> JSONAsyncDecoder<T> asyncDecoder(@NonNull TypeReference<T> typeReference, @NonNull JSONAsyncDecoder.Subscriber<? super T> subscriber) {
+        return asyncDecoder(typeReference, subscriber, JSONAsyncDecoder.DEFAULT_MAX_QUEUED);
+    }
+
+    @NonNull
+    public static <T> JSONAsyncDecoder<T> asyncDecoder(@NonNull TypeReference<T> typeReference, @NonNull JSONAsyncDecoder.Subscriber<? super T> subscriber, int maxQueued) {
+        Assert.notNull(typeReference, "Target class must not be null");
+        return asyncDecoder(OBJECT_MAPPER.getTypeFactory().constructType(typeReference), subscriber, maxQueued);
+    }
+
+    /*
+     * codec: typed handles whose reader and writer are resolved once and cached per type, up to 1024 types per data
+     * format before the least recently used one is evicted. Readers and writers snapshot the configuration of
+     * OBJECT_MAPPER, call clearCodecs after reconfiguring it
+     */
+
+    @NonNull
+    public static <T> JSONCodec<T> codec(@NonNull Class<T> cls) {
+        Assert.notNull(cls, "Target class must not be null");
+        return codec(OBJECT_MAPPER.constructType(cls));
+    }
+
+    @NonNull
+    public static <T> JSONCodec<T> codec(@NonNull TypeReference<T> typeReference) {
+        Assert.notNull(typeReference, "Target class must not be null");
+        return codec(OBJECT_MAPPER.getTypeFactory().constructType(typeReference));
+    }
+
+    @NonNull
+    public static <T> JSONCodec<T> codec(@NonNull Class<T> cls, @NonNull DataFormat format) {
+        Assert.notNull(cls, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+        return codec(OBJECT_MAPPER.constructType(cls), format);
+    }
+
+    @NonNull
+    public static <T> JSONCodec<T> codec(@NonNull TypeReference<T> typeReference, @NonNull DataFormat format) {
+        Assert.notNull(typeReference, "Target class must not be null");
+        Assert.notNull(format, "Data format must not be null");
+        return codec(OBJECT_MAPPER.getTypeFactory().constructType(typeReference), format);
+    }
+
+    /**
+     * The buffer pool of the JSON parsers and generators, to pick its strategy and read its counters. The binary
+     * formats keep Jackson's per thread buffers
+     */
+    public static JSONBufferPool bufferPool() {
+        return BUFFER_POOL;
+    }
+
+    /**
+     * Failure counters of the methods of this class and of the codecs it creates
+     */
+    public static JSONErrors errors() {
+        return ERRORS;
+    }
+
+    /**
+     * Drops the cached codecs. A codec keeps the configuration {@link #OBJECT_MAPPER} had when it was created, so the
+     * modules, features and date formats set on the mapper afterwards only reach the methods of this class once the
+     * codecs are cleared
+     */
+    public static void clearCodecs() {
+        CODEC_CACHES.values().forEach(CodecCache::clear);
+    }
+
+    /**
+     * Registers a bytecode-generating module on {@link #OBJECT_MAPPER}, Blackbird or else Afterburner, whichever is on
+     * the classpath, so bean properties are accessed through generated code instead of reflection. Call it at startup:
+     * serializers and deserializers Jackson has already built keep the reflective path
+     *
+     * @return {@code true} if an accelerator module is registered
+     */
+    public static synchronized boolean enableAccelerator() {
+        if (accelerator != null) return true;
+        for (String name : ACCELERATOR_MODULES) {
+            Module module;
+            try {
+                module = (Module) Class.forName(name).getDeclaredConstructor().newInstance();
+                OBJECT_MAPPER.registerModule(module);
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                continue;
+            }
+            MAPPERS.values().forEach(mapper -> mapper.registerModule(module));
+            accelerator = module;
+            clearCodecs();
+            return true;
+        }
+        Logs.labels("JSONUtils").warn("No accelerator module found, expected one of {}", String.join(", ", ACCELERATOR_MODULES));
+        return false;
+    }
+
+    /**
+     * Applies the mapping rules shared by every {@link DataFormat}
+     */
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        // 对象的所有字段全部列入
+        mapper.setSerializationInclusion(JsonInclude.Include.ALWAYS);
+        // 取消默认转换 timestamps 形式
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        // 配置日期转换，固定格式走快速路径，其余情况交给原有的格式化器
+        JavaTimeModule javaTimeModule = new JavaTimeModule();
+        // Date
+        javaTimeModule.addSerializer(Date.class, JSONDateTimes.dateSerializer(new DateSerializer(false, new SimpleDateFormat(DATE_TIME_PATTERN)), TimeZone.getDefault()));
+        javaTimeModule.addDeserializer(Date.class, JSONDateTimes.dateDeserializer(new DateDeserializer(new DateDeserializer(), new SimpleDateFormat(DATE_TIME_PATTERN), DATE_TIME_PATTERN), TimeZone.getDefault()));
+        // LocalDateTime
+        javaTimeModule.addSerializer(LocalDateTime.class, JSONDateTimes.localDateTimeSerializer(new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN))));
+        javaTimeModule.addDeserializer(LocalDateTime.class, JSONDateTimes.localDateTimeDeserializer(new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(DATE_TIME_PATTERN))));
+        // LocalDate
+        javaTimeModule.addSerializer(LocalDate.class, JSONDateTimes.localDateSerializer(new LocalDateSerializer(DateTimeFormatter.ofPattern(DATE_PATTERN))));
+        javaTimeModule.addDeserializer(LocalDate.class, JSONDateTimes.localDateDeserializer(new LocalDateDeserializer(DateTimeFormatter.ofPattern(DATE_PATTERN))));
+        // LocalTime
+        javaTimeModule.addSerializer(LocalTime.class, JSONDateTimes.localTimeSerializer(new LocalTimeSerializer(DateTimeFormatter.ofPattern(TIME_PATTERN))));
+        javaTimeModule.addDeserializer(LocalTime.class, JSONDateTimes.localTimeDeserializer(new LocalTimeDeserializer(DateTimeFormatter.ofPattern(TIME_PATTERN))));
+        mapper.registerModule(javaTimeModule);
+        // 注册注解处理器为 @JSONGenerated 类生成的序列化器
+        registerGeneratedModules(mapper);
+        // 忽略空 Bean 转 json 的错误
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        // 忽略在 json 字符串中存在，但是在 java 对象中不存在对应属性的情况。防止错误
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    private static String write(Object obj) throws JsonProcessingException {
+        return obj instanceof String ? (String) obj : writer(obj).writeValueAsString(obj);
+    }
+
+    private static byte[] writeBytes(Object obj) throws JsonProcessingException {
+        return obj instanceof String ? ((String) obj).getBytes(StandardCharsets.UTF_8) : writer(obj).writeValueAsBytes(obj);
+    }
+
+    private static byte[] writeBytes(Object obj, DataFormat format) throws IOException {
+        if (!format.isBinary()) return writeBytes(obj);
+        if (!(obj instanceof String)) return writer(obj, format).writeValueAsBytes(obj);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(obj, out, format);
+        return out.toByteArray();
+    }
+
+    private static void write(Object obj, OutputStream out) throws IOException {
+        write(obj, out, DataFormat.JSON);
+    }
+
+    /**
+     * Writes the value into the stream, as UTF-8 for JSON, the stream is flushed but left open for the caller
+     */
+    private static void write(Object obj, OutputStream out, DataFormat format) throws IOException {
+        if (obj instanceof String && !format.isBinary()) {
+            out.write(((String) obj).getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        ObjectMapper mapper = mapper(format);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (obj instanceof String) {
+                try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser((String) obj)) {
+                    transcode(parser, generator);
+                }
+                return;
+            }
+            mapper.getSerializationConfig().initialize(generator);
+            writer(obj, format).writeValue(generator, obj);
+        }
+    }
+
+    /**
+     * Writes UTF-8 JSON from the current position, the position is restored when the remaining space is not enough
+     */
+    private static void write(Object obj, ByteBuffer buffer) throws IOException {
+        int position = buffer.position();
+        try {
+            write(obj, new ByteBufferBackedOutputStream(buffer));
+        } catch (BufferOverflowException e) {
+            buffer.position(position);
+            throw new IOException("Target buffer has only " + (buffer.limit() - position) + " bytes remaining", e);
+        }
+    }
+
+    private static <T> T read(Object obj, JavaType type) throws IOException {
+        return obj instanceof String ? codec(type).reader().readValue((String) obj) : JSONConverter.convert(OBJECT_MAPPER, obj, type);
+    }
+
+    private static <T> T read(byte[] bytes, JavaType type) throws IOException {
+        return read(bytes, type, DataFormat.JSON);
+    }
+
+    private static <T> T read(byte[] bytes, JavaType type, DataFormat format) throws IOException {
+        return codec(type, format).reader().readValue(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T read(byte[] bytes, Class<T> cls, DataFormat format) throws IOException {
+        if (!cls.equals(String.class)) return read(bytes, OBJECT_MAPPER.constructType(cls), format);
+        if (!format.isBinary()) return (T) new String(bytes, StandardCharsets.UTF_8);
+        try (JsonParser parser = mapper(format).getFactory().createParser(bytes)) {
+            return (T) transcode(parser);
+        }
+    }
+
+    private static <T> T read(InputStream in, Class<T> cls) throws IOException {
+        return read(in, cls, DataFormat.JSON);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T read(InputStream in, Class<T> cls, DataFormat format) throws IOException {
+        if (!cls.equals(String.class)) return read(in, OBJECT_MAPPER.constructType(cls), format);
+        if (!format.isBinary()) return (T) StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        try (JsonParser parser = mapper(format).getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return (T) transcode(parser);
+        }
+    }
+
+    private static <T> T read(InputStream in, JavaType type) throws IOException {
+        return read(in, type, DataFormat.JSON);
+    }
+
+    /**
+     * Reads one value from the stream, the stream is left open for the caller
+     */
+    private static <T> T read(InputStream in, JavaType type, DataFormat format) throws IOException {
+        ObjectMapper mapper = mapper(format);
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            mapper.getDeserializationConfig().initialize(parser);
+            return codec(type, format).reader().readValue(parser);
+        }
+    }
+
+    /**
+     * Copies one document token by token, e.g. JSON text into Smile
+     */
+    private static void transcode(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (parser.nextToken() == null) throw new JsonParseException(parser, "No content to transcode");
+        generator.copyCurrentStructure(parser);
+    }
+
+    private static String transcode(JsonParser parser) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(writer)) {
+            transcode(parser, generator);
+        }
+        return writer.toString();
+    }
+
+    private static <T> JSONCodec<T> codec(JavaType type) {
+        return codec(type, DataFormat.JSON);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> JSONCodec<T> codec(JavaType type, DataFormat format) {
+        CodecCache cache = CODEC_CACHES.get(format);
+        JSONCodec<?> codec = cache.get(type);
+        if (codec == null) codec = cache.put(type, new JSONCodec<>(mapper(format), type, format));
+        return (JSONCodec<T>) codec;
+    }
+
+    private static <T> JSONAsyncDecoder<T> asyncDecoder(JavaType type, JSONAsyncDecoder.Subscriber<? super T> subscriber, int maxQueued) {
+        Assert.notNull(subscriber, "Subscriber must not be null");
+        try {
+            return new JSONAsyncDecoder<>(type, codec(type).reader(), OBJECT_MAPPER.getFactory().createNonBlockingByteArrayParser(), subscriber, maxQueued);
+        } catch (IOException e) {
+            throw exceptionHandleNonnull("asyncDecoder", type, e);
+        }
+    }
+
+    private static void registerGeneratedModules(ObjectMapper mapper) {
+        Iterator<JSONGeneratedModule> modules = ServiceLoader.load(JSONGeneratedModule.class).iterator();
+        while (true) {
+            try {
+                if (!modules.hasNext()) return;
+            } catch (ServiceConfigurationError e) {
+                // the provider files could not be listed or read, asking again may fail the same way forever
+                Logs.labels("JSONUtils").warn("Generated modules not loaded, {}", e.getMessage());
+                return;
+            }
+            try {
+                mapper.registerModule(modules.next());
+            } catch (ServiceConfigurationError e) {
+                // the iterator has moved past the provider that failed to load
+                Logs.labels("JSONUtils").warn("Generated module skipped, {}", e.getMessage());
+            }
+        }
+    }
+
+    private static synchronized ObjectMapper createMapper(DataFormat format) {
+        ObjectMapper mapper = MAPPERS.get(format);
+        if (mapper == null) {
+            mapper = configure(new ObjectMapper(format.createFactory()));
+            if (accelerator != null) mapper.registerModule(accelerator);
+            MAPPERS.put(format, mapper);
+        }
+        return mapper;
+    }
+
+    private static ObjectWriter writer(Object obj) {
+        return writer(obj, DataFormat.JSON);
+    }
+
+    private static ObjectWriter writer(Object obj, DataFormat format) {
+        return codec(OBJECT_MAPPER.constructType(obj.getClass()), format).writer();
+    }
+
+    private static <T> T project(String json, String pointer, JavaType type) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+            return JSONPaths.read(parser, JsonPointer.compile(pointer), codec(type).reader());
+        }
+    }
+
+    private static <T> T project(byte[] bytes, String pointer, JavaType type) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(bytes)) {
+            return JSONPaths.read(parser, JsonPointer.compile(pointer), codec(type).reader());
+        }
+    }
+
+    private static Map<String, JsonNode> projectAll(String json, String... pointers) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+            return JSONPaths.readAll(OBJECT_MAPPER, parser, pointers);
+        }
+    }
+
+    private static Map<String, JsonNode> projectAll(byte[] bytes, String... pointers) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(bytes)) {
+            return JSONPaths.readAll(OBJECT_MAPPER, parser, pointers);
+        }
+    }
+
+    private static long writeAll(Iterator<?> values, OutputStream out, boolean lines, ForkJoinPool pool, JSONStreams.Policy policy) throws IOException {
+        return JSONParallel.writeAll(OBJECT_MAPPER, JSONUtils::writer, values, out, lines, pool, policy);
+    }
+
+    private static <T> Stream<T> stream(InputStream in, JavaType type, JSONStreams.Policy policy, boolean lines) throws IOException {
+        return lines ? JSONStreams.lines(codec(type), in, policy, null) : JSONStreams.values(codec(type), in, policy, null);
+    }
+
+    private static <T> Stream<T> stream(Path path, JavaType type, JSONStreams.Policy policy, boolean lines) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        try {
+            return lines ? JSONStreams.lines(codec(type), in, policy, in) : JSONStreams.values(codec(type), in, policy, in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records the failure of the operation in {@link #errors()} and returns the empty result of the Optional variant
+     *
+     * @param operation name of the failed method
+     * @param target    the class, type reference or type the call binds to, or the value it writes, may be {@code null}
+     */
+    protected static <T> Optional<T> exceptionHandle(String operation, Object target, Exception e) {
+        ERRORS.record(operation, target, e);
+        return Optional.empty();
+    }
+
+    protected static <T> T exceptionHandleNullable(String operation, Object target, Exception e) {
+        ERRORS.record(operation, target, e);
+        return null;
+    }
+
+    protected static IllegalArgumentException exceptionHandleNonnull(String operation, Object target, Exception e) {
+        ERRORS.record(operation, target, e);
+        return new IllegalArgumentException(e.getMessage());
+    }
+
+    /**
+     * @deprecated records the failure without an operation, use {@link #exceptionHandle(String, Object, Exception)}
+     */
+    @Deprecated
+    protected static <T> Optional<T> exceptionHandle(Exception e) {
+        return exceptionHandle(JSONErrors.OTHER, null, e);
+    }
+
+    /**
+     * @deprecated records the failure without an operation, use {@link #exceptionHandleNullable(String, Object, Exception)}
+     */
+    @Deprecated
+    protected static <T> T exceptionHandleNullable(Exception e) {
+        return exceptionHandleNullable(JSONErrors.OTHER, null, e);
+    }
+
+    /**
+     * @deprecated records the failure without an operation, use {@link #exceptionHandleNonnull(String, Object, Exception)}
+     */
+    @Deprecated
+    protected static IllegalArgumentException exceptionHandleNonnull(Exception e) {
+        return exceptionHandleNonnull(JSONErrors.OTHER, null, e);
+    }
+
+    /**
+     * Codecs of one data format, once full the least recently used type is evicted. A hit only stamps its entry with
+     * the clock, which moves on every miss, so the lookups of the hot types take no lock
+     */
+    private static final class CodecCache {
+
+        private final ConcurrentHashMap<JavaType, Entry> entries = new ConcurrentHashMap<>();
+        private final AtomicLong clock = new AtomicLong();
+
+        JSONCodec<?> get(JavaType type) {
+            Entry entry = entries.get(type);
+            if (entry == null) return null;
+            long now = clock.get();
+            if (entry.used != now) entry.used = now;
+            return entry.codec;
+        }
+
+        /**
+         * @return the codec cached for the type, the given one unless another thread stored one first
+         */
+        JSONCodec<?> put(JavaType type, JSONCodec<?> codec) {
+            Entry cached = entries.putIfAbsent(type, new Entry(codec, clock.incrementAndGet()));
+            if (cached != null) return cached.codec;
+            if (entries.size() > CODEC_CACHE_CAPACITY) evict();
+            return codec;
+        }
+
+        void clear() {
+            entries.clear();
+        }
+
+        private synchronized void evict() {
+            while (entries.size() > CODEC_CACHE_CAPACITY) {
+                Map.Entry<JavaType, Entry> eldest = null;
+                for (Map.Entry<JavaType, Entry> entry : entries.entrySet()) {
+                    if (eldest == null || entry.getValue().used < eldest.getValue().used) eldest = entry;
+                }
+                if (eldest == null) return;
+                entries.remove(eldest.getKey(), eldest.getValue());
+            }
+        }
+
+        private static final class Entry {
+            private final JSONCodec<?> codec;
+            private volatile long used;
+
+            Entry(JSONCodec<?> codec, long used) {
+                this.codec = codec;
+                this.used = used;
+            }
+        }
     }
 
     private static class MapTypeReference extends TypeReference<Map<String, Object>> {
@@ -0,0 +1,206 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h3>Lock-free latency histogram</h3>
+ *
+ * <p>Counts nanosecond measurements in log-linear buckets: values below 32 have a bucket each, every power of two
+ * above is split into 32 buckets, so a percentile is off by at most about 3% up to 2^36 ns, a little over a minute,
+ * and longer values fall into the last bucket while the maximum stays exact. Recording is an atomic add on the bucket
+ * and the sum of one of a few stripes picked by the thread, the stripes are summed when a snapshot is taken</p>
+ *
+ * <p>A stripe is only allocated once a thread records into it, and its buckets only one power of two at a time, when
+ * a measurement first falls into it. A task whose calls stay within a few powers of two takes about a kilobyte
+ * instead of the 8 KB per stripe all the buckets would need</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final int CHUNKS = BUCKETS >>> SUB_BITS;
+    private static final int SUM = 0;
+    private static final int MAX = 1;
+    private static final int MAX_STRIPES = 4;
+
+    private final AtomicReferenceArray<Stripe> stripes;
+    private final int mask;
+
+    public LatencyHistogram() {
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicReferenceArray<>(stripes);
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * Counts a measurement, negative ones as {@code 0}
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int slot = (int) Thread.currentThread().getId() & mask;
+        Stripe stripe = stripes.get(slot);
+        if (stripe == null) {
+            // the stripe of the thread that lost the race is dropped before any count went into it
+            stripes.compareAndSet(slot, null, new Stripe());
+            stripe = stripes.get(slot);
+        }
+        int index = index(value);
+        stripe.chunk(index >>> SUB_BITS).incrementAndGet(index & (SUB_BUCKETS - 1));
+        AtomicLongArray totals = stripe.totals;
+        totals.addAndGet(SUM, value);
+        long max;
+        while (value > (max = totals.get(MAX)) && !totals.compareAndSet(MAX, max, value)) {
+            // another thread raised the maximum meanwhile, checked again
+        }
+    }
+
+    public Snapshot snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * @param reset whether the counts are taken out, each measurement then goes either into this snapshot or the next
+     */
+    public Snapshot snapshot(boolean reset) {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (int s = 0; s < stripes.length(); s++) {
+            Stripe stripe = stripes.get(s);
+            if (stripe == null) continue;
+            for (int c = 0; c < CHUNKS; c++) {
+                AtomicLongArray chunk = stripe.chunks.get(c);
+                if (chunk == null) continue;
+                for (int i = 0; i < SUB_BUCKETS; i++) {
+                    counts[(c << SUB_BITS) + i] += reset ? chunk.getAndSet(i, 0) : chunk.get(i);
+                }
+            }
+            AtomicLongArray totals = stripe.totals;
+            sum += reset ? totals.getAndSet(SUM, 0) : totals.get(SUM);
+            max = Math.max(max, reset ? totals.getAndSet(MAX, 0) : totals.get(MAX));
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    public void reset() {
+        snapshot(true);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) return BUCKETS - 1;
+        int shift = exponent - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value of the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Buckets of the threads mapped to one stripe, in chunks of one power of two, with their sum and maximum
+     */
+    private static final class Stripe {
+        private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(CHUNKS);
+        private final AtomicLongArray totals = new AtomicLongArray(2);
+
+        AtomicLongArray chunk(int index) {
+            AtomicLongArray chunk = chunks.get(index);
+            if (chunk != null) return chunk;
+            chunks.compareAndSet(index, null, new AtomicLongArray(SUB_BUCKETS));
+            return chunks.get(index);
+        }
+    }
+
+    /**
+     * Counts of a histogram at one point in time
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            long count = 0;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Largest measurement in nanos, exact
+         */
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Smallest value in nanos at or above which no more than {@code 100 - percentile} percent of the measurements
+         * lie, as the largest value of its bucket, {@code 0} without measurements
+         *
+         * @param percentile within {@code [0, 100]}
+         */
+        public long getPercentile(double percentile) {
+            Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be within [0, 100]");
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValue(i), max);
+            }
+            return max;
+        }
+
+        public long getP50() {
+            return getPercentile(50);
+        }
+
+        public long getP99() {
+            return getPercentile(99);
+        }
+
+        public long getP999() {
+            return getPercentile(99.9);
+        }
+
+        @Override
+        public String toString() {
+            return "count : " + count + ", p50 : " + micros(getP50()) + "us, p99 : " + micros(getP99()) + "us, p999 : "
+                    + micros(getP999()) + "us, max : " + micros(max) + "us";
+        }
+
+        private static long micros(long nanos) {
+            return nanos / 1000;
+        }
+    }
+
+}
@@ -3,14 +3,15 @@ package cn.bebullish.common.toolkit.utils;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.util.Strings;
+import org.slf4j.helpers.MessageFormatter;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.Base64;
-import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,44 +36,164 @@ public class Logs {
 
     protected static final String[] EMPTY_STRING_ARRAY = new String[]{};
     protected static final Object[] EMPTY_OBJECT_ARRAY = new Object[]{};
-
+    /**
+     * @deprecated the rate control state is kept in {@link #rateLimitTable()}, nothing reads or writes this map anymore
+     */
+    @Deprecated
     protected static final ConcurrentHashMap<String, Long> RATE_COUNT_MAP = new ConcurrentHashMap<>();
+    /**
+     * @deprecated the rate control state is kept in {@link #rateLimitTable()}, nothing reads or writes this map anymore
+     */
+    @Deprecated
     protected static final ConcurrentHashMap<String, Long> RATE_TIME_MAP = new ConcurrentHashMap<>();
 
+    private static final long HASH_SEED = 0xCBF29CE484222325L;
+    private static final long HASH_MULTIPLIER = 0x87C37B91114253D5L;
+    private static final long NULL_HASH = 0x6E756C6CL;
+    private static final long BUDGET_SEED = 0x9AE16A3B2F90404FL;
+    private static final long GLOBAL_BUDGET_KEY = 0x2545F4914F6CDD1DL;
+    private static final long LABELS_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long SITE_SEED = 0x165667B19E3779F9L;
+
+    private static final int VARARGS = -1;
+    private static final int MAX_LABEL_PREFIXES = 1024;
+
+    private static final Map<String, Budget> LABEL_BUDGETS = new ConcurrentHashMap<>();
+    private static final Map<LabelSet, String> LABEL_PREFIXES = new ConcurrentHashMap<>();
+    private static final LogsDedup DEDUP = new LogsDedup();
+    private static volatile RateLimitTable rateLimitTable = new RateLimitTable();
+    private static volatile Budget globalBudget;
+    private static volatile Budget defaultLabelBudget;
+    private static volatile boolean budgeted;
+    private static volatile LogsAsync async;
+    private static volatile LogsHeavyHitters heavyHitters;
+    private static volatile Output output = Output.TEXT;
+    private static boolean shutdownHook;
+
+    /**
+     * Builder of the static methods, it has no policy and is never modified
+     */
+    private static final LogsBuilder PLAIN = new LogsBuilder();
+
     protected String format;
     protected String[] labels;
     protected Object[] arguments;
     protected Level level;
     protected int rateCount;
     protected Duration rateTime;
+    protected int rateBurst;
+    protected Duration rateRefill;
+    protected int rateLimit;
+    protected Duration rateWindow;
+    protected Duration dedupWindow;
+    /**
+     * Share of the calls this one was kept from, {@code 1} when it is not sampled
+     */
+    protected double sampleRate = 1;
+    /**
+     * Epoch millis of the call
+     */
+    protected final long time;
+    private String prefix;
 
     public Logs(String format, String[] labels, Object[] arguments, Level level, int rateCount, Duration rateTime) {
+        this(format, labels, arguments, level, rateCount, rateTime, 0, null, 0, null, null);
+    }
+
+    public Logs(String format, String[] labels, Object[] arguments, Level level, int rateCount, Duration rateTime,
+                int rateBurst, Duration rateRefill, int rateLimit, Duration rateWindow, Duration dedupWindow) {
         this.format = format;
         this.labels = labels;
         this.arguments = arguments;
         this.level = level;
         this.rateCount = rateCount;
         this.rateTime = rateTime;
+        this.rateBurst = rateBurst;
+        this.rateRefill = rateRefill;
+        this.rateLimit = rateLimit;
+        this.rateWindow = rateWindow;
+        this.dedupWindow = dedupWindow;
+        this.time = System.currentTimeMillis();
+    }
+
+    public static void trace(String format) {
+        PLAIN.trace(format);
+    }
+
+    public static void trace(String format, Object argument) {
+        PLAIN.trace(format, argument);
+    }
+
+    public static void trace(String format, Object argument1, Object argument2) {
+        PLAIN.trace(format, argument1, argument2);
     }
 
     public static void trace(String format, Object... arguments) {
-        Logs.builder().trace(format, arguments);
+        PLAIN.trace(format, arguments);
+    }
+
+    public static void debug(String format) {
+        PLAIN.debug(format);
+    }
+
+    public static void debug(String format, Object argument) {
+        PLAIN.debug(format, argument);
+    }
+
+    public static void debug(String format, Object argument1, Object argument2) {
+        PLAIN.debug(format, argument1, argument2);
     }
 
     public static void debug(String format, Object... arguments) {
-        Logs.builder().debug(format, arguments);
+        PLAIN.debug(format, arguments);
+    }
+
+    public static void info(String format) {
+        PLAIN.info(format);
+    }
+
+    public static void info(String format, Object argument) {
+        PLAIN.info(format, argument);
+    }
+
+    public static void info(String format, Object argument1, Object argument2) {
+        PLAIN.info(format, argument1, argument2);
     }
 
     public static void info(String format, Object... arguments) {
-        Logs.builder().info(format, arguments);
+        PLAIN.info(format, arguments);
+    }
+
+    public static void warn(String format) {
+        PLAIN.warn(format);
+    }
+
+    public static void warn(String format, Object argument) {
+        PLAIN.warn(format, argument);
+    }
+
+    public static void warn(String format, Object argument1, Object argument2) {
+        PLAIN.warn(format, argument1, argument2);
     }
 
     public static void warn(String format, Object... arguments) {
-        Logs.builder().warn(format, arguments);
+        PLAIN.warn(format, arguments);
+    }
+
+    public static void error(String format) {
+        PLAIN.error(format);
+    }
+
+    public static void error(String format, Object argument) {
+        PLAIN.error(format, argument);
+    }
+
+    public static void error(String format, Object argument1, Object argument2) {
+        PLAIN.error(format, argument1, argument2);
     }
 
     public static void error(String format, Object... arguments) {
-        Logs.builder().error(format, arguments);
+        PLAIN.error(format, arguments);
     }
 
     public static LogsBuilder rateCount(int count) {
@@ -83,14 +204,283 @@ public class Logs {
         return Logs.builder().rateTime(rateTime);
     }
 
+    public static LogsBuilder rateBucket(int burst, Duration refill) {
+        return Logs.builder().rateBucket(burst, refill);
+    }
+
+    public static LogsBuilder rateWindow(int limit, Duration window) {
+        return Logs.builder().rateWindow(limit, window);
+    }
+
+    public static LogsBuilder dedup(Duration window) {
+        return Logs.builder().dedup(window);
+    }
+
+    public static LogsBuilder sample(double rate) {
+        return Logs.builder().sample(rate);
+    }
+
+    public static LogsBuilder sampleAdaptive(double linesPerSecond) {
+        return Logs.builder().sampleAdaptive(linesPerSecond);
+    }
+
+    public static LogsBuilder rateKey(RateKey rateKey) {
+        return Logs.builder().rateKey(rateKey);
+    }
+
     public static LogsBuilder labels(String... labels) {
         return Logs.builder().labels(labels);
     }
 
+    /**
+     * The rate control state shared by every rate limited call
+     */
+    public static RateLimitTable rateLimitTable() {
+        return rateLimitTable;
+    }
+
+    /**
+     * Replaces the rate control state, e.g. to change its capacity, the calls counted so far start over
+     */
+    public static void rateLimitTable(RateLimitTable table) {
+        Assert.notNull(table, "Rate limit table must not be null");
+        rateLimitTable = table;
+    }
+
+    /**
+     * Caps the volume of every call together, checked after the label budgets, {@code null} to remove
+     */
+    public static void globalBudget(Budget budget) {
+        globalBudget = budget;
+        updateBudgeted();
+    }
+
+    /**
+     * Caps the volume of the calls carrying the label, {@code null} to remove
+     */
+    public static void labelBudget(String label, Budget budget) {
+        Assert.notNull(label, "Label must not be null");
+        if (budget == null) LABEL_BUDGETS.remove(label);
+        else LABEL_BUDGETS.put(label, budget);
+        updateBudgeted();
+    }
+
+    /**
+     * Caps the volume of each label without a budget of its own separately, so a flooding label runs out of its budget
+     * while the other labels keep theirs, {@code null} to remove
+     */
+    public static void defaultLabelBudget(Budget budget) {
+        defaultLabelBudget = budget;
+        updateBudgeted();
+    }
+
+    private static void updateBudgeted() {
+        budgeted = globalBudget != null || defaultLabelBudget != null || !LABEL_BUDGETS.isEmpty();
+    }
+
+    /**
+     * Closes the open dedup windows now and prints their summaries, e.g. before shutting down
+     */
+    public static void flush() {
+        DEDUP.flush();
+        LogsAsync current = async;
+        if (current != null) current.flush();
+    }
+
+    public static Output output() {
+        return output;
+    }
+
+    /**
+     * How the calls are written to the logger from now on
+     */
+    public static void output(Output mode) {
+        Assert.notNull(mode, "Output must not be null");
+        output = mode;
+    }
+
+    public static LogsHeavyHitters heavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * Counts every call above the level under its format and labels, printed or suppressed, {@code null} to stop
+     */
+    public static void heavyHitters(LogsHeavyHitters tracker) {
+        heavyHitters = tracker;
+    }
+
+    public static LogsAsync async() {
+        return async;
+    }
+
+    /**
+     * Prints the calls through the asynchronous stage, {@code null} to print them on the calling thread again. The
+     * stage replaced is closed once it has printed its buffered calls, and on shutdown of the JVM the dedup windows are
+     * flushed and the stage is closed, so a graceful stop loses nothing
+     */
+    public static void async(LogsAsync stage) {
+        LogsAsync previous;
+        synchronized (Logs.class) {
+            if (stage != null) {
+                stage.start();
+                if (!shutdownHook) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(Logs::shutdown, "logs-shutdown"));
+                    shutdownHook = true;
+                }
+            }
+            previous = async;
+            async = stage;
+        }
+        if (previous != null && previous != stage) previous.close();
+    }
+
+    private static void shutdown() {
+        DEDUP.flush();
+        LogsAsync current = async;
+        if (current != null) current.close();
+    }
+
     public static Logs.LogsBuilder builder() {
         return new Logs.LogsBuilder();
     }
 
+    /**
+     * Policy and label prefix of the printed format, computed once per instance
+     */
+    private String prefix() {
+        String current = prefix;
+        if (current == null) {
+            prefix = current = prefix(labels, rateCount, rateTime, rateBurst, rateRefill, rateLimit, rateWindow, dedupWindow,
+                    sampleRate);
+        }
+        return current;
+    }
+
+    private static String prefix(String[] labels, int rateCount, Duration rateTime, int rateBurst, Duration rateRefill,
+                                 int rateLimit, Duration rateWindow, Duration dedupWindow, double sampleRate) {
+        StringBuilder prefix = new StringBuilder();
+        if (sampleRate < 1) prefix.append("[sample-").append((float) sampleRate).append("] ");
+        if (rateCount != 0) prefix.append("[rateCount-").append(rateCount).append("] ");
+        if (rateTime != null) prefix.append("[rateTime-").append(rateTime.toMillis()).append("ms] ");
+        if (rateBurst > 0) prefix.append("[rateBucket-").append(rateBurst).append('/').append(rateRefill.toMillis()).append("ms] ");
+        if (rateLimit > 0) prefix.append("[rateWindow-").append(rateLimit).append('/').append(rateWindow.toMillis()).append("ms] ");
+        if (dedupWindow != null) prefix.append("[dedup-").append(dedupWindow.toMillis()).append("ms] ");
+        return prefix.append(labelPrefix(labels)).toString();
+    }
+
+    /**
+     * The {@code [label] } prefix of the label set, shared by every call with equal labels
+     */
+    private static String labelPrefix(String[] labels) {
+        if (labels == null || labels.length == 0) return Strings.EMPTY;
+        LabelSet key = new LabelSet(labels);
+        String prefix = LABEL_PREFIXES.get(key);
+        if (prefix != null) return prefix;
+        prefix = Stream.of(labels).collect(Collectors.joining("] [", "[", "] "));
+        if (LABEL_PREFIXES.size() < MAX_LABEL_PREFIXES) LABEL_PREFIXES.putIfAbsent(new LabelSet(labels.clone()), prefix);
+        return prefix;
+    }
+
+    private static final class LabelSet {
+        private final String[] labels;
+        private final int hash;
+
+        LabelSet(String[] labels) {
+            this.labels = labels;
+            this.hash = Arrays.hashCode(labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LabelSet && Arrays.equals(labels, ((LabelSet) o).labels);
+        }
+    }
+
+    /**
+     * Volume allowed per period, in lines or in bytes of the message, as a token bucket that holds one period's worth
+     * and refills evenly
+     */
+    public static final class Budget {
+        private final long amount;
+        private final Duration refill;
+        private final boolean bytes;
+
+        private Budget(long amount, Duration period, boolean bytes) {
+            Assert.isTrue(amount > 0, "Budget amount must be positive");
+            Assert.notNull(period, "Budget period must not be null");
+            this.amount = amount;
+            this.refill = Duration.ofNanos(Math.max(1, period.toNanos() / amount));
+            this.bytes = bytes;
+        }
+
+        public static Budget lines(long lines, Duration period) {
+            return new Budget(lines, period, false);
+        }
+
+        /**
+         * Counts the UTF-8 length of the formatted message, a message longer than the budget is never printed
+         */
+        public static Budget bytes(long bytes, Duration period) {
+            return new Budget(bytes, period, true);
+        }
+
+        boolean tryAcquire(RateLimitTable table, long key, long size) {
+            return table.tryAcquireBucket(key, amount, refill, bytes ? size : 1);
+        }
+
+        void refund(RateLimitTable table, long key, long size) {
+            table.refundBucket(key, refill, bytes ? size : 1);
+        }
+    }
+
+    /**
+     * What the rate control tells calls apart by
+     */
+    public enum RateKey {
+        /**
+         * The format template only, one key per call site
+         */
+        TEMPLATE,
+        /**
+         * The format template and the level
+         */
+        TEMPLATE_AND_LEVEL,
+        /**
+         * The format template, the level and the arguments, all of them unless selected with
+         * {@link LogsBuilder#rateArguments(int...)}
+         */
+        TEMPLATE_AND_ARGUMENTS,
+        /**
+         * The labels only, the calls of every call site with equal labels share one key
+         */
+        LABELS
+    }
+
+    /**
+     * How a call is written to the logger
+     */
+    public enum Output {
+        /**
+         * The format behind a prefix of the rate policies and labels, e.g. {@code [rateCount-5] [label] format}
+         */
+        TEXT,
+        /**
+         * One JSON object per call, with the time, level, labels, rate policies, format, message and arguments as
+         * fields, see {@link LogsJson}
+         */
+        JSON
+    }
+
+    /**
+     * A configured builder can be kept in a field and shared by threads, the calls only read its policies and it caches
+     * the prefix of the printed format
+     */
     public static class LogsBuilder {
         private String format;
         private String[] labels;
@@ -98,6 +488,19 @@ public class Logs {
         private Level level;
         private int rateCount;
         private Duration rateTime;
+        private int rateBurst;
+        private Duration rateRefill;
+        private int rateLimit;
+        private Duration rateWindow;
+        private Duration dedupWindow;
+        private double sampleRate = 1;
+        private double sampleTarget;
+        private RateKey rateKey = RateKey.TEMPLATE_AND_ARGUMENTS;
+        private int[] rateArguments;
+        /**
+         * Prefix of the printed format, reset whenever a part of it changes
+         */
+        private String prefix;
 
         LogsBuilder() {
         }
@@ -109,6 +512,7 @@ public class Logs {
 
         public Logs.LogsBuilder labels(final String[] labels) {
             this.labels = labels;
+            this.prefix = null;
             return this;
         }
 
@@ -124,87 +528,420 @@ public class Logs {
 
         public Logs.LogsBuilder rateCount(final int rateCount) {
             this.rateCount = rateCount;
+            this.prefix = null;
             return this;
         }
 
         public LogsBuilder rateTime(Duration rateTime) {
             this.rateTime = rateTime;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * Token bucket per rate key: up to {@code burst} calls at once, then one per {@code refill}, a burst of
+         * {@code 0} for no limit
+         */
+        public LogsBuilder rateBucket(int burst, Duration refill) {
+            Assert.isTrue(burst <= 0 || refill != null, "Refill must not be null");
+            this.rateBurst = burst;
+            this.rateRefill = refill;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * At most {@code limit} calls per rate key within any {@code window}, a limit of {@code 0} for no limit
+         */
+        public LogsBuilder rateWindow(int limit, Duration window) {
+            Assert.isTrue(limit <= 0 || window != null, "Window must not be null");
+            this.rateLimit = limit;
+            this.rateWindow = window;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * Prints the first call of a rate key and only counts the calls of the key within the following
+         * {@code window}, a summary line with their number and time span is printed when the window closes
+         */
+        public LogsBuilder dedup(Duration window) {
+            this.dedupWindow = window;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * Keeps a random share {@code rate} of the calls, {@code 1} for all, checked before the other policies. The
+         * printed line carries the rate, so counts taken from the log can be scaled back up
+         */
+        public LogsBuilder sample(double rate) {
+            Assert.isTrue(rate > 0 && rate <= 1, "Sample rate must be within (0, 1]");
+            this.sampleRate = rate;
+            this.sampleTarget = 0;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * Keeps about {@code linesPerSecond} calls of each rate key per second, {@code 0} to stop sampling, the
+         * printed line carries the rate it was kept at whenever it is below {@code 1}
+         *
+         * @see RateLimitTable#trySample(long, double)
+         */
+        public LogsBuilder sampleAdaptive(double linesPerSecond) {
+            Assert.isTrue(linesPerSecond >= 0, "Lines per second must not be negative");
+            this.sampleTarget = linesPerSecond;
+            this.sampleRate = 1;
+            this.prefix = null;
+            return this;
+        }
+
+        /**
+         * What the calls are told apart by for the rate control, {@link RateKey#TEMPLATE_AND_ARGUMENTS} by default
+         */
+        public LogsBuilder rateKey(RateKey rateKey) {
+            Assert.notNull(rateKey, "Rate key must not be null");
+            this.rateKey = rateKey;
+            return this;
+        }
+
+        /**
+         * Tells the calls apart by the template, the level and only the arguments at the indexes
+         */
+        public LogsBuilder rateArguments(int... indexes) {
+            this.rateKey = RateKey.TEMPLATE_AND_ARGUMENTS;
+            this.rateArguments = indexes;
             return this;
         }
 
+        public void trace(String format) {
+            log(format, TRACE, 0, null, null, null);
+        }
+
+        public void trace(String format, Object argument) {
+            log(format, TRACE, 1, argument, null, null);
+        }
+
+        public void trace(String format, Object argument1, Object argument2) {
+            log(format, TRACE, 2, argument1, argument2, null);
+        }
+
         public void trace(String format, Object... arguments) {
-            printLog(format, TRACE, arguments);
+            log(format, TRACE, VARARGS, null, null, arguments);
+        }
+
+        public void debug(String format) {
+            log(format, DEBUG, 0, null, null, null);
+        }
+
+        public void debug(String format, Object argument) {
+            log(format, DEBUG, 1, argument, null, null);
+        }
+
+        public void debug(String format, Object argument1, Object argument2) {
+            log(format, DEBUG, 2, argument1, argument2, null);
         }
 
         public void debug(String format, Object... arguments) {
-            printLog(format, DEBUG, arguments);
+            log(format, DEBUG, VARARGS, null, null, arguments);
+        }
+
+        public void info(String format) {
+            log(format, INFO, 0, null, null, null);
+        }
+
+        public void info(String format, Object argument) {
+            log(format, INFO, 1, argument, null, null);
+        }
+
+        public void info(String format, Object argument1, Object argument2) {
+            log(format, INFO, 2, argument1, argument2, null);
         }
 
         public void info(String format, Object... arguments) {
-            printLog(format, INFO, arguments);
+            log(format, INFO, VARARGS, null, null, arguments);
+        }
+
+        public void warn(String format) {
+            log(format, WARN, 0, null, null, null);
+        }
+
+        public void warn(String format, Object argument) {
+            log(format, WARN, 1, argument, null, null);
+        }
+
+        public void warn(String format, Object argument1, Object argument2) {
+            log(format, WARN, 2, argument1, argument2, null);
         }
 
         public void warn(String format, Object... arguments) {
-            printLog(format, WARN, arguments);
+            log(format, WARN, VARARGS, null, null, arguments);
+        }
+
+        public void error(String format) {
+            log(format, ERROR, 0, null, null, null);
+        }
+
+        public void error(String format, Object argument) {
+            log(format, ERROR, 1, argument, null, null);
+        }
+
+        public void error(String format, Object argument1, Object argument2) {
+            log(format, ERROR, 2, argument1, argument2, null);
         }
 
         public void error(String format, Object... arguments) {
-            printLog(format, ERROR, arguments);
+            log(format, ERROR, VARARGS, null, null, arguments);
+        }
+
+        /**
+         * Checks the level first, then the policies, the arguments of the fixed arity methods are only put into an
+         * array once the call is printed, so a disabled or suppressed call allocates nothing
+         *
+         * @param arity number of arguments passed separately, {@link #VARARGS} when they are in the array
+         */
+        private void log(String format, Level level, int arity, Object first, Object second, Object[] arguments) {
+            if (!isEnabled(level)) return;
+            LogsHeavyHitters tracker = heavyHitters;
+            if (tracker != null) tracker.record(siteKey(format), format, labels);
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return;
+            RateLimitTable table = rateLimitTable;
+            long key = 0;
+            double rate = sampleRate;
+            if (rateCount != 0 || rateTime != null || rateBurst > 0 || rateLimit > 0 || sampleTarget > 0 || dedupWindow != null) {
+                // each policy only counts the calls the ones before it let through
+                key = getRateKey(format, level, arity, first, second, arguments);
+                if ((rateCount != 0 || rateTime != null) && !table.tryAcquire(key, rateCount, rateTime)) return;
+                if (rateBurst > 0 && !table.tryAcquireBucket(key, rateBurst, rateRefill, 1)) return;
+                if (rateLimit > 0 && !table.tryAcquireWindow(key, rateLimit, rateWindow)) return;
+                if (sampleTarget > 0 && (rate = table.trySample(key, sampleTarget)) == 0) return;
+                if (dedupWindow != null && DEDUP.suppress(table, key)) return;
+            }
+            if (budgeted && !withinBudgets(format, arity, first, second, arguments)) return;
+            Object[] values = arguments(arity, first, second, arguments);
+            Logs logs = new Logs(format == null ? Strings.EMPTY : format, labels, values == null ? EMPTY_OBJECT_ARRAY : values,
+                    level, rateCount, rateTime, rateBurst, rateRefill, rateLimit, rateWindow, dedupWindow);
+            logs.sampleRate = rate;
+            // an adaptive rate changes from call to call, so such a line builds its own prefix
+            if (rate == sampleRate) logs.prefix = prefix();
+            if (dedupWindow != null && !DEDUP.open(table, key, dedupWindow, logs)) return;
+            emit(logs);
+        }
+
+        private String prefix() {
+            String current = prefix;
+            if (current == null) {
+                prefix = current = Logs.prefix(labels, rateCount, rateTime, rateBurst, rateRefill, rateLimit, rateWindow, dedupWindow,
+                        sampleRate);
+            }
+            return current;
+        }
+
+        private static boolean isEnabled(Level level) {
+            if (INFO == level) return log.isInfoEnabled();
+            if (DEBUG == level) return log.isDebugEnabled();
+            if (WARN == level) return log.isWarnEnabled();
+            if (ERROR == level) return log.isErrorEnabled();
+            if (TRACE == level) return log.isTraceEnabled();
+            throw new IllegalStateException("Unexpected value: " + level);
         }
 
-        private void printLog(String format, Level level, Object... arguments) {
-            if (rateCount != 0) {
-                String mapKey = getRateKey(format, level, arguments);
-                Long currentCount = RATE_COUNT_MAP.put(mapKey, RATE_COUNT_MAP.getOrDefault(mapKey, 0L) + 1);
-                if (currentCount != null && currentCount % rateCount != 0) return;
+        private static Object[] arguments(int arity, Object first, Object second, Object[] arguments) {
+            switch (arity) {
+                case VARARGS:
+                    return arguments;
+                case 0:
+                    return EMPTY_OBJECT_ARRAY;
+                case 1:
+                    return new Object[]{first};
+                default:
+                    return new Object[]{first, second};
             }
-            if (rateTime != null) {
-                String mapKey = getRateKey(format, level, arguments);
-                long currentTimeMillis = System.currentTimeMillis();
-                long lastTime = RATE_TIME_MAP.getOrDefault(mapKey, 0L);
-                if (lastTime != 0 && currentTimeMillis < lastTime + rateTime.toMillis()) return;
-                RATE_TIME_MAP.put(mapKey, currentTimeMillis);
+        }
+
+        /**
+         * Takes the call from the budget of each label and then the global one, a budget that refuses it gives the
+         * tokens back to the ones before, so a flooding label does not use up the budgets of the labels it is logged with
+         */
+        private boolean withinBudgets(String format, int arity, Object first, Object second, Object[] arguments) {
+            RateLimitTable table = rateLimitTable;
+            long size = -1;
+            int charged = labels == null ? 0 : labels.length;
+            for (int i = 0; i < charged; i++) {
+                Budget budget = labelBudget(labels[i]);
+                if (budget == null) continue;
+                if (budget.bytes && size < 0) size = messageSize(format, arguments(arity, first, second, arguments));
+                if (!budget.tryAcquire(table, labelBudgetKey(labels[i]), size)) {
+                    refundLabels(table, i, size);
+                    return false;
+                }
             }
-            print(Logs.builder()
-                    .rateCount(rateCount)
-                    .rateTime(rateTime)
-                    .labels(labels)
-                    .level(level)
-                    .format(format == null ? Strings.EMPTY : format)
-                    .arguments(arguments == null ? EMPTY_OBJECT_ARRAY : arguments)
-                    .build());
+            Budget budget = globalBudget;
+            if (budget == null) return true;
+            if (budget.bytes && size < 0) size = messageSize(format, arguments(arity, first, second, arguments));
+            if (budget.tryAcquire(table, GLOBAL_BUDGET_KEY, size)) return true;
+            refundLabels(table, charged, size);
+            return false;
+        }
+
+        private void refundLabels(RateLimitTable table, int count, long size) {
+            for (int i = 0; i < count; i++) {
+                Budget budget = labelBudget(labels[i]);
+                if (budget != null) budget.refund(table, labelBudgetKey(labels[i]), size);
+            }
+        }
+
+        private static Budget labelBudget(String label) {
+            if (label == null) return null;
+            Budget budget = LABEL_BUDGETS.get(label);
+            return budget == null ? defaultLabelBudget : budget;
         }
 
-        private String getRateKey(String format, Level level, Object... arguments) {
-            List<String> argumentsList = Arrays.stream(arguments).map(Object::toString).collect(Collectors.toList());
-            argumentsList.add(format);
-            argumentsList.add(level.name());
-            return Base64.getEncoder().encodeToString(String.join("", argumentsList).getBytes(StandardCharsets.UTF_8));
+        private static long labelBudgetKey(String label) {
+            return finish(hash(BUDGET_SEED, label));
+        }
+
+        private static long messageSize(String format, Object[] arguments) {
+            String message = MessageFormatter.arrayFormat(format, arguments).getMessage();
+            if (message == null) return 0;
+            long size = 0;
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                if (c < 0x80) size++;
+                else if (c < 0x800) size += 2;
+                else if (Character.isHighSurrogate(c)) {
+                    size += 4;
+                    i++;
+                } else size += 3;
+            }
+            return size;
+        }
+
+        /**
+         * 64-bit hash of the parts the rate key strategy selects, computed without building strings for text, numbers,
+         * enums and classes, other arguments are hashed through their {@code toString()}
+         */
+        private long getRateKey(String format, Level level, int arity, Object first, Object second, Object[] arguments) {
+            if (rateKey == RateKey.LABELS) return labelsKey();
+            long hash = hash(HASH_SEED, format);
+            if (rateKey == RateKey.TEMPLATE) return finish(hash);
+            hash = mix(hash, level.intLevel());
+            if (rateKey == RateKey.TEMPLATE_AND_ARGUMENTS) {
+                int count = arity != VARARGS ? arity : arguments == null ? 0 : arguments.length;
+                if (rateArguments == null) {
+                    for (int i = 0; i < count; i++) {
+                        hash = hash(hash, argument(i, arity, first, second, arguments));
+                    }
+                } else {
+                    for (int index : rateArguments) {
+                        hash = hash(hash, index >= 0 && index < count ? argument(index, arity, first, second, arguments) : null);
+                    }
+                }
+            }
+            return finish(hash);
+        }
+
+        /**
+         * Hash of the format and the labels the heavy hitters count the call under
+         */
+        private long siteKey(String format) {
+            long hash = hash(SITE_SEED, format);
+            if (labels != null) {
+                for (String label : labels) {
+                    hash = hash(hash, label);
+                }
+            }
+            return finish(hash);
+        }
+
+        private long labelsKey() {
+            long hash = LABELS_SEED;
+            if (labels != null) {
+                for (String label : labels) {
+                    hash = hash(hash, label);
+                }
+            }
+            return finish(hash);
+        }
+
+        private static Object argument(int index, int arity, Object first, Object second, Object[] arguments) {
+            if (arity == VARARGS) return arguments[index];
+            return index == 0 ? first : second;
+        }
+
+        private static long hash(long hash, Object argument) {
+            if (argument == null) return mix(hash, NULL_HASH);
+            if (argument instanceof CharSequence) return hash(hash, (CharSequence) argument);
+            if (argument instanceof Long || argument instanceof Integer || argument instanceof Short || argument instanceof Byte) {
+                return mix(hash, ((Number) argument).longValue());
+            }
+            if (argument instanceof Double || argument instanceof Float) {
+                return mix(hash, Double.doubleToLongBits(((Number) argument).doubleValue()));
+            }
+            if (argument instanceof Boolean) return mix(hash, (Boolean) argument ? 1 : 0);
+            if (argument instanceof Character) return mix(hash, (Character) argument);
+            if (argument instanceof Enum) return hash(hash, ((Enum<?>) argument).name());
+            if (argument instanceof Class) return hash(hash, ((Class<?>) argument).getName());
+            return hash(hash, argument.toString());
+        }
+
+        private static long hash(long hash, CharSequence text) {
+            if (text == null) return mix(hash, NULL_HASH);
+            int length = text.length();
+            int i = 0;
+            // four chars per multiplication
+            for (; i + 4 <= length; i += 4) {
+                long block = text.charAt(i) | (long) text.charAt(i + 1) << 16 | (long) text.charAt(i + 2) << 32 | (long) text.charAt(i + 3) << 48;
+                hash = Long.rotateLeft((hash ^ block) * HASH_MULTIPLIER, 31);
+            }
+            for (; i < length; i++) {
+                hash = Long.rotateLeft((hash ^ text.charAt(i)) * HASH_MULTIPLIER, 31);
+            }
+            // the length keeps ("ab", "c") apart from ("a", "bc")
+            return mix(hash, length);
+        }
+
+        private static long mix(long hash, long value) {
+            return Long.rotateLeft((hash ^ value) * HASH_MULTIPLIER, 31);
+        }
+
+        private static long finish(long hash) {
+            hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
         }
 
         public Logs build() {
-            return new Logs(this.format, this.labels, this.arguments, this.level, this.rateCount, this.rateTime);
+            Logs logs = new Logs(this.format, this.labels, this.arguments, this.level, this.rateCount, this.rateTime,
+                    this.rateBurst, this.rateRefill, this.rateLimit, this.rateWindow, this.dedupWindow);
+            logs.sampleRate = this.sampleRate;
+            return logs;
+        }
+
+        /**
+         * Hands the call to the asynchronous stage if one is installed, or else prints it
+         */
+        static void emit(Logs logs) {
+            LogsAsync current = async;
+            if (current == null || !current.publish(logs)) print(logs);
         }
 
         protected static void print(Logs logs) {
             if (!StringUtils.hasLength(logs.format)) return;
-            String labels = resolve(logs.labels);
-            String rateCountLabel = logs.rateCount != 0 ? String.format("[rateCount-%d] ", logs.rateCount) : Strings.EMPTY;
-            String rateTimeLabel = logs.rateTime != null ? String.format("[rateTime-%dms] ", logs.rateTime.toMillis()) : Strings.EMPTY;
-            String format = rateCountLabel + rateTimeLabel + labels + logs.format;
-            if (DEBUG.equals(logs.level)) log.debug(format, logs.arguments);
-            else if (INFO.equals(logs.level)) log.info(format, logs.arguments);
-            else if (WARN.equals(logs.level)) log.warn(format, logs.arguments);
-            else if (ERROR.equals(logs.level)) log.error(format, logs.arguments);
-            else if (TRACE.equals(logs.level)) log.trace(format, logs.arguments);
-            else throw new IllegalStateException("Unexpected value: " + logs.level);
-        }
-
-        private static String resolve(String[] labels) {
-            labels = labels == null ? EMPTY_STRING_ARRAY : labels;
-            if (labels.length == 0) return Strings.EMPTY;
-            return Stream.of(labels).collect(Collectors.joining("] [", "[", "] "));
+            if (output == Output.JSON) print(logs.level, "{}", LogsJson.arguments(logs));
+            else print(logs.level, logs.prefix() + logs.format, logs.arguments);
         }
+
+        private static void print(Level level, String format, Object[] arguments) {
+            if (DEBUG.equals(level)) log.debug(format, arguments);
+            else if (INFO.equals(level)) log.info(format, arguments);
+            else if (WARN.equals(level)) log.warn(format, arguments);
+            else if (ERROR.equals(level)) log.error(format, arguments);
+            else if (TRACE.equals(level)) log.trace(format, arguments);
+            else throw new IllegalStateException("Unexpected value: " + level);
+        }
+
     }
 
 }
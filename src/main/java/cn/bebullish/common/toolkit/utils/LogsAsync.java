@@ -0,0 +1,404 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.apache.logging.log4j.Level;
+import org.slf4j.MDC;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h3>Asynchronous emission of {@link Logs}</h3>
+ *
+ * <p>Once installed with {@link Logs#async(LogsAsync)} a printed call only publishes its {@link Logs} into a bounded
+ * lock-free ring buffer, and one daemon thread takes them out in batches, formats them and hands them to the logger.
+ * When the buffer is full the {@link Overflow} policy decides whether the caller waits for room or the call is dropped.
+ * The arguments are formatted on the draining thread, so they should not be modified after the call. A call made once
+ * the stage is closed is printed on the calling thread</p>
+ *
+ * <p>The {@link MDC} of the caller is copied with the call and set around its printing, and the name of the calling
+ * thread is added to it under {@link #CALLER_THREAD}: the logger itself only sees the draining thread, so a pattern
+ * showing the thread should read {@code %X{logs.thread}} instead</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class LogsAsync {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * {@link MDC} key holding the name of the thread that made the call
+     */
+    public static final String CALLER_THREAD = "logs.thread";
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+    private static final long FLUSH_PARK_NANOS = 50_000L;
+    private static final long FULL_WAIT_MILLIS = 1;
+
+    private final AtomicReferenceArray<Logs> events;
+    /**
+     * {@link MDC} of the caller of each event, {@code null} when it was empty
+     */
+    private final AtomicReferenceArray<Map<String, String>> contexts;
+    private final AtomicReferenceArray<String> threads;
+    /**
+     * Sequence expected in each slot: the publishing position while it is free, the position plus one once published
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int batchSize;
+    private final Overflow overflow;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    /**
+     * Monitor the callers waiting for room sleep on, woken after every batch while any of them waits
+     */
+    private final Object full = new Object();
+    private final AtomicInteger waiting = new AtomicInteger();
+    /**
+     * Position of the next event to take out, only moved by the consumer
+     */
+    private volatile long head;
+    /**
+     * Events handed to the logger, trails the head by the event being printed
+     */
+    private volatile long emitted;
+    private volatile long maxLag;
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+    private volatile Thread drainer;
+
+    public LogsAsync() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, Overflow.block());
+    }
+
+    /**
+     * @param capacity  events buffered at most, rounded up to a power of two
+     * @param batchSize events printed per pass of the draining thread before it updates the counters
+     * @param overflow  what happens to a call while the buffer is full
+     */
+    public LogsAsync(int capacity, int batchSize, Overflow overflow) {
+        Assert.isTrue(capacity > 1, "Capacity must be greater than 1");
+        Assert.isTrue(batchSize > 0, "Batch size must be positive");
+        Assert.notNull(overflow, "Overflow must not be null");
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.events = new AtomicReferenceArray<>(size);
+        this.contexts = new AtomicReferenceArray<>(size);
+        this.threads = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.batchSize = batchSize;
+        this.overflow = overflow;
+    }
+
+    public int getCapacity() {
+        return events.length();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Calls dropped by the overflow policy
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Calls that found the buffer full, whether they waited or were dropped
+     */
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    /**
+     * Events handed to the logger
+     */
+    public long getEmitted() {
+        return emitted;
+    }
+
+    /**
+     * Events published and not yet handed to the logger
+     */
+    public long getLag() {
+        return Math.max(0, tail.get() - emitted);
+    }
+
+    /**
+     * Largest lag the draining thread found at the start of a batch
+     */
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Waits until every event published before the call has been handed to the logger
+     */
+    public void flush() {
+        long target = tail.get();
+        while (emitted < target) {
+            Thread current = drainer;
+            if (current == null || !current.isAlive() || current == Thread.currentThread()) {
+                drain(Integer.MAX_VALUE);
+                return;
+            }
+            LockSupport.unpark(current);
+            LockSupport.parkNanos(this, FLUSH_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Stops the draining thread once it has printed every buffered event, later calls are printed on the calling
+     * thread
+     */
+    public void close() {
+        closed = true;
+        Thread current = drainer;
+        if (current != null && current != Thread.currentThread()) {
+            LockSupport.unpark(current);
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain(Integer.MAX_VALUE);
+    }
+
+    synchronized void start() {
+        Assert.state(!closed, "Closed LogsAsync can not be started again");
+        if (drainer != null) return;
+        Thread thread = new Thread(this::run, "logs-async");
+        thread.setDaemon(true);
+        drainer = thread;
+        thread.start();
+    }
+
+    /**
+     * Buffers the call for the draining thread
+     *
+     * @return whether the call was taken care of, buffered or dropped, {@code false} when the caller has to print it
+     */
+    boolean publish(Logs logs) {
+        Thread caller = Thread.currentThread();
+        if (closed || caller == drainer) return false;
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (!offer(logs, context, caller.getName())) {
+            overflowed.increment();
+            if (!overflow.waits(logs.level)) {
+                dropped.increment();
+                return true;
+            }
+            if (!await(logs, context, caller.getName())) return false;
+        }
+        if (sleeping) LockSupport.unpark(drainer);
+        // close may have taken out the last events before this one was buffered
+        if (closed) drain(Integer.MAX_VALUE);
+        return true;
+    }
+
+    /**
+     * Sleeps until the call fits, the callers waiting are woken after every batch rather than spinning, so they do not
+     * take the processor from the draining thread
+     *
+     * @return whether the call was buffered, {@code false} once the stage is closed or the caller is interrupted
+     */
+    private boolean await(Logs logs, Map<String, String> context, String thread) {
+        waiting.incrementAndGet();
+        try {
+            synchronized (full) {
+                while (!offer(logs, context, thread)) {
+                    if (closed) return false;
+                    LockSupport.unpark(drainer);
+                    full.wait(FULL_WAIT_MILLIS);
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean offer(Logs logs, Map<String, String> context, String thread) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events.lazySet(slot, logs);
+                    contexts.lazySet(slot, context);
+                    threads.lazySet(slot, thread);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the event of the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            if (drain(batchSize) > 0) continue;
+            sleeping = true;
+            // checked again after announcing the sleep, a publisher either sees the flag or its event is seen here
+            if (!ready() && !closed) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            sleeping = false;
+        }
+        drain(Integer.MAX_VALUE);
+    }
+
+    private boolean ready() {
+        long position = head;
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    /**
+     * Prints up to {@code limit} events, the lock keeps a single consumer when the closing or a late publishing thread
+     * drains what is left, the {@link MDC} of that thread is put back afterwards
+     */
+    private synchronized int drain(int limit) {
+        long position = head;
+        long lag = tail.get() - position;
+        if (lag > maxLag) maxLag = lag;
+        int count = 0;
+        Map<String, String> own = null;
+        while (count < limit) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) break;
+            Logs logs = events.get(slot);
+            Map<String, String> context = contexts.get(slot);
+            String thread = threads.get(slot);
+            events.lazySet(slot, null);
+            contexts.lazySet(slot, null);
+            threads.lazySet(slot, null);
+            sequences.set(slot, position + events.length());
+            head = ++position;
+            if (count == 0) own = MDC.getCopyOfContextMap();
+            try {
+                if (context != null) MDC.setContextMap(context);
+                else MDC.clear();
+                MDC.put(CALLER_THREAD, thread);
+                Logs.LogsBuilder.print(logs);
+            } catch (RuntimeException e) {
+                // a failing appender must not stop the draining of the events behind it
+            }
+            emitted = position;
+            count++;
+        }
+        if (count > 0) {
+            if (own != null) MDC.setContextMap(own);
+            else MDC.clear();
+        }
+        if (count > 0 && waiting.get() > 0) {
+            synchronized (full) {
+                full.notifyAll();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Policy for the calls that find the buffer full
+     */
+    public static final class Overflow {
+        private final Kind kind;
+        private final Level level;
+        private final int sample;
+        private final AtomicLong overflows = new AtomicLong();
+
+        private Overflow(Kind kind, Level level, int sample) {
+            this.kind = kind;
+            this.level = level;
+            this.sample = sample;
+        }
+
+        /**
+         * Every call waits for room, nothing is lost but the callers are held up by the logger
+         */
+        public static Overflow block() {
+            return new Overflow(Kind.BLOCK, null, 1);
+        }
+
+        /**
+         * Every call is dropped, the callers are never held up
+         */
+        public static Overflow dropNewest() {
+            return new Overflow(Kind.DROP_NEWEST, null, 1);
+        }
+
+        /**
+         * Calls less severe than the level are dropped, the others wait for room
+         */
+        public static Overflow dropBelow(Level level) {
+            Assert.notNull(level, "Level must not be null");
+            return new Overflow(Kind.DROP_BELOW_LEVEL, level, 1);
+        }
+
+        /**
+         * One in {@code every} calls waits for room, the others are dropped
+         */
+        public static Overflow sample(int every) {
+            Assert.isTrue(every > 0, "Sample rate must be positive");
+            return new Overflow(Kind.SAMPLE, null, every);
+        }
+
+        boolean waits(Level level) {
+            switch (kind) {
+                case BLOCK:
+                    return true;
+                case DROP_BELOW_LEVEL:
+                    return level.intLevel() <= this.level.intLevel();
+                case SAMPLE:
+                    return overflows.getAndIncrement() % sample == 0;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case DROP_BELOW_LEVEL:
+                    return "dropBelow(" + level + ")";
+                case SAMPLE:
+                    return "sample(" + sample + ")";
+                default:
+                    return kind == Kind.BLOCK ? "block()" : "dropNewest()";
+            }
+        }
+
+        private enum Kind {
+            BLOCK, DROP_NEWEST, DROP_BELOW_LEVEL, SAMPLE
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.slf4j.helpers.MessageFormatter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <h3>Dedup windows of {@link Logs}</h3>
+ *
+ * <p>The first call of a key is printed and opens a window, the calls of the key within the window are only counted
+ * and when the window closes a single summary line reports how many were suppressed and when the first and the last
+ * suppressed call happened, in {@link JSONUtils#DATE_TIME_PATTERN}. The summary values go before the exception of the
+ * call, so it is still logged as the exception. Counting a suppressed call is a lookup in the {@link RateLimitTable} and a compare-and-set, the
+ * windows are closed by one daemon thread started with the first window. No more windows are open than the table holds
+ * keys: once they are all taken the windows whose key the table evicted meanwhile, which could not count a call
+ * anymore, are closed first, and a call that still finds no room is printed without a window</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class LogsDedup {
+
+    private static final long CLOSED = -1;
+    private static final String SUMMARY = " (suppressed {} identical messages between {} and {})";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern(JSONUtils.DATE_TIME_PATTERN).withZone(ZoneId.systemDefault());
+    private static final AtomicLongFieldUpdater<Window> SUPPRESSED = AtomicLongFieldUpdater.newUpdater(Window.class, "suppressed");
+    private static final AtomicLongFieldUpdater<Window> FIRST = AtomicLongFieldUpdater.newUpdater(Window.class, "first");
+
+    private final Set<Window> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger opened = new AtomicInteger();
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Counts the call in the open window of the key
+     *
+     * @return whether the call is suppressed, {@code false} when the key has no open window
+     */
+    boolean suppress(RateLimitTable table, long key) {
+        long now = System.currentTimeMillis();
+        Object attachment = table.attachment(key, now);
+        return attachment instanceof Window && ((Window) attachment).count(now);
+    }
+
+    /**
+     * Opens a window of the key for a call about to be printed
+     *
+     * @return whether the call is printed, {@code false} when another call opened a window first and this one was
+     * counted in it instead
+     */
+    boolean open(RateLimitTable table, long key, Duration length, Logs logs) {
+        long now = System.currentTimeMillis();
+        Object current = table.attachment(key, now);
+        if (current instanceof Window && ((Window) current).count(now)) return false;
+        if (!reserve(table)) return true;
+        Window window = new Window(table, key, logs);
+        if (!table.attach(key, current, window, now)) {
+            opened.decrementAndGet();
+            // lost to a concurrent call of the key, which either opened a window this call now counts in or closed one
+            return !suppress(table, key);
+        }
+        open.add(window);
+        ScheduledFuture<?> closing = scheduler().schedule(() -> close(window), Math.max(1, length.toMillis()), TimeUnit.MILLISECONDS);
+        window.closing = closing;
+        // closed by a flush or an eviction before the task was known, it is dropped rather than left queued
+        if (window.suppressed == CLOSED) closing.cancel(false);
+        return true;
+    }
+
+    /**
+     * Takes one of the places for open windows, as many as the table holds keys
+     *
+     * @return whether a window may be opened
+     */
+    private boolean reserve(RateLimitTable table) {
+        int limit = table.getCapacity();
+        while (true) {
+            int count = opened.get();
+            if (count < limit) {
+                if (opened.compareAndSet(count, count + 1)) return true;
+            } else if (!closeEvicted()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return whether any window was closed
+     */
+    private boolean closeEvicted() {
+        boolean closed = false;
+        for (Window window : open) {
+            if (window.table.peekAttachment(window.key) != window && close(window)) closed = true;
+        }
+        return closed;
+    }
+
+    /**
+     * Closes every open window now, printing their summaries
+     */
+    void flush() {
+        for (Window window : open) {
+            close(window);
+        }
+    }
+
+    /**
+     * @return whether this call closed the window, {@code false} when it was closed already
+     */
+    private boolean close(Window window) {
+        long suppressed = SUPPRESSED.getAndSet(window, CLOSED);
+        if (suppressed == CLOSED) return false;
+        open.remove(window);
+        opened.decrementAndGet();
+        ScheduledFuture<?> closing = window.closing;
+        if (closing != null) closing.cancel(false);
+        // an evicted key is not inserted again only to clear it
+        window.table.detach(window.key, window);
+        if (suppressed > 0) Logs.LogsBuilder.emit(window.summary(suppressed));
+        return true;
+    }
+
+    private ScheduledExecutorService scheduler() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null) return current;
+        synchronized (this) {
+            if (scheduler == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "logs-dedup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.setRemoveOnCancelPolicy(true);
+                scheduler = executor;
+            }
+            return scheduler;
+        }
+    }
+
+    private static final class Window {
+        private final RateLimitTable table;
+        private final long key;
+        private final Logs logs;
+        /**
+         * Time of the first suppressed call, {@code 0} before any, set before the call is counted
+         */
+        volatile long first;
+        volatile long suppressed;
+        private volatile long last;
+        private volatile ScheduledFuture<?> closing;
+
+        Window(RateLimitTable table, long key, Logs logs) {
+            this.table = table;
+            this.key = key;
+            this.logs = logs;
+        }
+
+        boolean count(long now) {
+            if (first == 0 && suppressed != CLOSED) FIRST.compareAndSet(this, 0, now);
+            long count;
+            do {
+                count = suppressed;
+                if (count == CLOSED) return false;
+            } while (!SUPPRESSED.compareAndSet(this, count, count + 1));
+            last = now;
+            return true;
+        }
+
+        /**
+         * The printed call with the count and the time span of the suppressed ones added to its arguments, ahead of
+         * the trailing throwable SLF4J takes as the exception
+         */
+        Logs summary(long count) {
+            int length = logs.arguments.length;
+            int at = MessageFormatter.arrayFormat(logs.format, logs.arguments).getThrowable() == null ? length : length - 1;
+            Object[] arguments = new Object[length + 3];
+            System.arraycopy(logs.arguments, 0, arguments, 0, at);
+            arguments[at] = count;
+            arguments[at + 1] = TIME.format(Instant.ofEpochMilli(first));
+            arguments[at + 2] = TIME.format(Instant.ofEpochMilli(Math.max(first, last)));
+            System.arraycopy(logs.arguments, at, arguments, at + 3, length - at);
+            Logs summary = new Logs(logs.format + SUMMARY, logs.labels, arguments, logs.level, logs.rateCount, logs.rateTime,
+                    logs.rateBurst, logs.rateRefill, logs.rateLimit, logs.rateWindow, logs.dedupWindow);
+            summary.sampleRate = logs.sampleRate;
+            return summary;
+        }
+    }
+
+}
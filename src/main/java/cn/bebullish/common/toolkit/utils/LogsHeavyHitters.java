@@ -0,0 +1,226 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h3>Noisiest call sites of {@link Logs}</h3>
+ *
+ * <p>Once installed with {@link Logs#heavyHitters(LogsHeavyHitters)} every call above the level, printed or suppressed,
+ * is counted under its format and labels in a count-min sketch: {@code depth} rows of {@code width} counters, each call
+ * adds one to a counter per row and the count of a site is the smallest of its counters. The sketch only overcounts,
+ * by at most {@code e / width} of all the calls with probability {@code 1 - e^-depth}. Alongside it a fixed set of
+ * candidate sites keeps the ones whose counts were the highest when they last reached a multiple of the offer
+ * interval, so the memory held is the same whatever the number of sites. Counting is an atomic add per row, a site
+ * only scans the candidates once per offer interval of its calls</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class LogsHeavyHitters {
+
+    public static final int DEFAULT_WIDTH = 2048;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_TOP = 32;
+    private static final int OFFER_INTERVAL = 64;
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+    private final int top;
+    /**
+     * Twice as many candidates as reported, so a site climbing into the top is rarely pushed out on its way
+     */
+    private final AtomicReferenceArray<Candidate> candidates;
+
+    public LogsHeavyHitters() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_TOP);
+    }
+
+    /**
+     * @param width counters per row, rounded up to a power of two, the error bound shrinks as it grows
+     * @param depth rows, the chance of exceeding the error bound shrinks as it grows
+     * @param top   sites reported by {@link #top()}
+     */
+    public LogsHeavyHitters(int width, int depth, int top) {
+        Assert.isTrue(width > 1, "Width must be greater than 1");
+        Assert.isTrue(depth > 0, "Depth must be positive");
+        Assert.isTrue(top > 0, "Top must be positive");
+        this.width = Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.top = top;
+        this.counters = new AtomicLongArray(this.width * depth);
+        this.candidates = new AtomicReferenceArray<>(top * 2);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Calls counted, the sum of any one row
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int column = 0; column < width; column++) {
+            total += counters.get(column);
+        }
+        return total;
+    }
+
+    /**
+     * Most a count may exceed the true one by, with probability {@code 1 - e^-depth}
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E / width * getTotal());
+    }
+
+    /**
+     * The noisiest sites with their approximate counts, the noisiest first
+     */
+    public List<Site> top() {
+        long error = getErrorBound();
+        List<Site> sites = new ArrayList<>(candidates.length());
+        for (int i = 0; i < candidates.length(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (candidate != null) sites.add(new Site(candidate, estimate(candidate.key), error));
+        }
+        sites.sort(Comparator.comparingLong(Site::getCount).reversed());
+        return sites.size() > top ? new ArrayList<>(sites.subList(0, top)) : sites;
+    }
+
+    /**
+     * Drops the counts and the candidates
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (int i = 0; i < candidates.length(); i++) {
+            candidates.set(i, null);
+        }
+    }
+
+    /**
+     * Counts a call of the site
+     *
+     * @param key 64-bit hash of the format and the labels
+     */
+    void record(long key, String format, String[] labels) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & (width - 1);
+            count = Math.min(count, counters.incrementAndGet(row * width + column));
+        }
+        if (count == 1 || count % OFFER_INTERVAL == 0) offer(key, format, labels, count);
+    }
+
+    private long estimate(long key) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        long count = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            count = Math.min(count, counters.get(row * width + ((h1 + row * h2) & (width - 1))));
+        }
+        return count;
+    }
+
+    /**
+     * Keeps the site as a candidate if it is one already, a slot is free or it outnumbers the least candidate
+     */
+    private void offer(long key, String format, String[] labels, long count) {
+        while (true) {
+            int free = -1;
+            int least = -1;
+            Candidate leastCandidate = null;
+            for (int i = 0; i < candidates.length(); i++) {
+                Candidate candidate = candidates.get(i);
+                if (candidate == null) {
+                    if (free < 0) free = i;
+                } else if (candidate.key == key) {
+                    if (candidate.count < count) candidate.count = count;
+                    return;
+                } else if (leastCandidate == null || candidate.count < leastCandidate.count) {
+                    least = i;
+                    leastCandidate = candidate;
+                }
+            }
+            if (free < 0 && leastCandidate.count >= count) return;
+            Candidate created = new Candidate(key, format, labels, count);
+            if (free >= 0 ? candidates.compareAndSet(free, null, created)
+                    : candidates.compareAndSet(least, leastCandidate, created)) return;
+            // the candidates changed meanwhile, the site may have been added by another thread
+        }
+    }
+
+    private static final class Candidate {
+        private final long key;
+        private final String format;
+        private final String[] labels;
+        /**
+         * Count of the site when it was last offered
+         */
+        private volatile long count;
+
+        Candidate(long key, String format, String[] labels, long count) {
+            this.key = key;
+            this.format = format;
+            this.labels = labels == null ? Logs.EMPTY_STRING_ARRAY : labels.clone();
+            this.count = count;
+        }
+    }
+
+    /**
+     * Approximate count of one site at the time of the snapshot
+     */
+    public static final class Site {
+        private final String format;
+        private final String[] labels;
+        private final long count;
+        private final long error;
+
+        Site(Candidate candidate, long count, long error) {
+            this.format = candidate.format;
+            this.labels = candidate.labels;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public String[] getLabels() {
+            return labels.clone();
+        }
+
+        /**
+         * Calls of the site, printed or suppressed, possibly overcounted by up to {@link #getError()}
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(labels) + " " + format + " : " + count + " (error " + error + ")";
+        }
+    }
+
+}
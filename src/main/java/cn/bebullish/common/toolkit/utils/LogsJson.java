@@ -0,0 +1,216 @@
+package cn.bebullish.common.toolkit.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * <h3>JSON lines of {@link Logs}</h3>
+ *
+ * <p>Writes a call as one JSON object with its time, level, labels, rate policies, format, formatted message and
+ * arguments as separate fields, streamed by a generator of {@link JSONUtils#OBJECT_MAPPER} into a character buffer
+ * kept per thread, so the pipeline reading the log needs no pattern to take the line apart. Dates and times follow the
+ * {@link JSONUtils} patterns, plain values are written as they are, other arguments are serialized straight into the
+ * line, and when one of them fails the line is written again with the arguments as their {@link String#valueOf(Object)}
+ * </p>
+ *
+ * <p>The line is handed to SLF4J as the one argument of a {@code "{}"} format, which only takes a finished value: the
+ * appender may format it later or on another thread while the buffer is already reused, so the single copy out of the
+ * buffer into a {@link String} is the only one made</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class LogsJson {
+
+    /**
+     * Larger buffers are dropped after the line instead of kept for the next one
+     */
+    private static final int MAX_KEPT_BUFFER = 1 << 16;
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+    /**
+     * The pattern has no millis, so the text only changes once per second
+     */
+    private static volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
+
+    private LogsJson() {
+    }
+
+    /**
+     * The line and the throwable of the call, if any, as the arguments of a {@code "{}"} format
+     */
+    static Object[] arguments(Logs logs) {
+        FormattingTuple message = MessageFormatter.arrayFormat(logs.format, logs.arguments);
+        Buffer buffer = BUFFER.get();
+        String line;
+        try {
+            line = line(buffer, logs, message, false);
+        } catch (IOException | RuntimeException e) {
+            // an argument failed halfway through, the generator is left inside it
+            try {
+                line = line(buffer, logs, message, true);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        if (buffer.capacity() > MAX_KEPT_BUFFER) BUFFER.remove();
+        Throwable throwable = message.getThrowable();
+        return throwable == null ? new Object[]{line} : new Object[]{line, throwable};
+    }
+
+    /**
+     * @param plain whether the arguments other than plain values and times are written as their text
+     */
+    private static String line(Buffer buffer, Logs logs, FormattingTuple message, boolean plain) throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = JSONUtils.OBJECT_MAPPER.getFactory().createGenerator(buffer)) {
+            write(generator, logs, message, plain);
+        }
+        return buffer.text();
+    }
+
+    private static void write(JsonGenerator generator, Logs logs, FormattingTuple message, boolean plain) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("timestamp", timestamp(logs.time));
+        generator.writeNumberField("epochMillis", logs.time);
+        generator.writeStringField("level", logs.level.name());
+        if (logs.labels != null && logs.labels.length > 0) {
+            generator.writeFieldName("labels");
+            generator.writeArray(logs.labels, 0, logs.labels.length);
+        }
+        writeRate(generator, logs);
+        generator.writeStringField("format", logs.format);
+        generator.writeStringField("message", message.getMessage());
+        Object[] arguments = message.getThrowable() == null ? logs.arguments : message.getArgArray();
+        if (arguments != null && arguments.length > 0) {
+            generator.writeArrayFieldStart("arguments");
+            for (Object argument : arguments) {
+                writeArgument(generator, argument, plain);
+            }
+            generator.writeEndArray();
+        }
+        if (message.getThrowable() != null) {
+            generator.writeStringField("exception", message.getThrowable().toString());
+        }
+        generator.writeEndObject();
+    }
+
+    private static String timestamp(long time) {
+        long second = Math.floorDiv(time, 1000L);
+        Timestamp current = timestamp;
+        if (current.second == second) return current.text;
+        String text;
+        try {
+            text = JSONUtils.OBJECT_MAPPER.convertValue(new Date(second * 1000), String.class);
+        } catch (IllegalArgumentException e) {
+            text = String.valueOf(time);
+        }
+        timestamp = new Timestamp(second, text);
+        return text;
+    }
+
+    private static void writeRate(JsonGenerator generator, Logs logs) throws IOException {
+        boolean any = logs.rateCount != 0 || logs.rateTime != null || logs.rateBurst > 0 || logs.rateLimit > 0
+                || logs.dedupWindow != null || logs.sampleRate < 1;
+        if (!any) return;
+        generator.writeObjectFieldStart("rate");
+        if (logs.rateCount != 0) generator.writeNumberField("count", logs.rateCount);
+        if (logs.rateTime != null) generator.writeNumberField("timeMillis", logs.rateTime.toMillis());
+        if (logs.rateBurst > 0) {
+            generator.writeObjectFieldStart("bucket");
+            generator.writeNumberField("burst", logs.rateBurst);
+            generator.writeNumberField("refillMillis", logs.rateRefill.toMillis());
+            generator.writeEndObject();
+        }
+        if (logs.rateLimit > 0) {
+            generator.writeObjectFieldStart("window");
+            generator.writeNumberField("limit", logs.rateLimit);
+            generator.writeNumberField("lengthMillis", logs.rateWindow.toMillis());
+            generator.writeEndObject();
+        }
+        if (logs.dedupWindow != null) generator.writeNumberField("dedupMillis", logs.dedupWindow.toMillis());
+        if (logs.sampleRate < 1) generator.writeNumberField("sample", logs.sampleRate);
+        generator.writeEndObject();
+    }
+
+    private static void writeArgument(JsonGenerator generator, Object argument, boolean plain) throws IOException {
+        if (argument == null) {
+            generator.writeNull();
+        } else if (argument instanceof CharSequence || argument instanceof Character || argument instanceof Enum) {
+            generator.writeString(argument.toString());
+        } else if (argument instanceof Integer || argument instanceof Long || argument instanceof Short || argument instanceof Byte) {
+            generator.writeNumber(((Number) argument).longValue());
+        } else if (argument instanceof Double || argument instanceof Float) {
+            generator.writeNumber(((Number) argument).doubleValue());
+        } else if (argument instanceof Boolean) {
+            generator.writeBoolean((Boolean) argument);
+        } else if (argument instanceof Date || argument instanceof TemporalAccessor) {
+            generator.writeObject(argument);
+        } else if (plain) {
+            generator.writeString(String.valueOf(argument));
+        } else {
+            JSONUtils.OBJECT_MAPPER.writeValue(generator, argument);
+        }
+    }
+
+    private static final class Timestamp {
+        private final long second;
+        private final String text;
+
+        Timestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Characters of the line, the generator writes no bytes so nothing is encoded and decoded again
+     */
+    private static final class Buffer extends Writer {
+        private final StringBuilder builder = new StringBuilder(512);
+
+        @Override
+        public void write(char[] characters, int offset, int length) {
+            builder.append(characters, offset, length);
+        }
+
+        @Override
+        public void write(int character) {
+            builder.append((char) character);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            builder.append(text, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void reset() {
+            builder.setLength(0);
+        }
+
+        int capacity() {
+            return builder.capacity();
+        }
+
+        String text() {
+            return builder.toString();
+        }
+    }
+
+}
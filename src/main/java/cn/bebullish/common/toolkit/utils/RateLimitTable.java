@@ -0,0 +1,406 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Rate control state of {@link Logs}</h3>
+ *
+ * <p>Keeps a counter and the time of the last accepted call per 64-bit rate key in a fixed array of lock-free slots,
+ * so the memory held is bounded by the capacity whatever the number of distinct keys. A key is looked up within a short
+ * probe window of slots, a new key takes a free slot of its window or else replaces the least recently used entry of
+ * the window, and entries idle for longer than the idle timeout are swept out as new keys come in. An evicted key
+ * starts over, so its next call is accepted again. Lookups of a key already held allocate nothing</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+public final class RateLimitTable {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final int PROBES = 16;
+    private static final long WINDOW_COUNT_MASK = (1L << 22) - 1;
+    private static final long WINDOW_INDEX_MASK = (1L << 20) - 1;
+    private static final long SAMPLE_PERIOD_MILLIS = 1000;
+    private static final long SAMPLE_COUNT_MASK = (1L << 32) - 1;
+    private static final long FULL_SAMPLE = Double.doubleToRawLongBits(1.0);
+
+    private static final AtomicLongFieldUpdater<Entry> COUNT = AtomicLongFieldUpdater.newUpdater(Entry.class, "count");
+    private static final AtomicLongFieldUpdater<Entry> LAST_TIME = AtomicLongFieldUpdater.newUpdater(Entry.class, "lastTime");
+    private static final AtomicLongFieldUpdater<Entry> ARRIVAL = AtomicLongFieldUpdater.newUpdater(Entry.class, "arrival");
+    private static final AtomicLongFieldUpdater<Entry> WINDOW = AtomicLongFieldUpdater.newUpdater(Entry.class, "window");
+    private static final AtomicLongFieldUpdater<Entry> SAMPLE_PERIOD = AtomicLongFieldUpdater.newUpdater(Entry.class, "samplePeriod");
+    private static final AtomicReferenceFieldUpdater<Entry, Object> ATTACHMENT =
+            AtomicReferenceFieldUpdater.newUpdater(Entry.class, Object.class, "attachment");
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long idleTimeoutMillis;
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder evictions = new LongAdder();
+
+    public RateLimitTable() {
+        this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param capacity    keys kept at most, rounded up to a power of two
+     * @param idleTimeout time after its last call an entry may be dropped, should exceed the rate times in use
+     */
+    public RateLimitTable(int capacity, Duration idleTimeout) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        Assert.notNull(idleTimeout, "Idle timeout must not be null");
+        int size = Math.max(PROBES, Integer.highestOneBit(capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Entries dropped to make room for another key or because they were idle
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Keys currently held, counted by a scan of the slots
+     */
+    public int getSize() {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) size++;
+        }
+        return size;
+    }
+
+    /**
+     * Drops every entry and resets the counters
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        evictions.reset();
+    }
+
+    /**
+     * Counts the call and decides whether it is printed
+     *
+     * @param rateCount print every {@code rateCount}-th call of the key, starting with the first, {@code 0} for all
+     * @param rateTime  print at most one call of the key per period, {@code null} for no limit
+     * @return whether the call passes both limits
+     */
+    public boolean tryAcquire(long key, int rateCount, Duration rateTime) {
+        long now = System.currentTimeMillis();
+        Entry entry = entry(key, now);
+        if (rateCount != 0) {
+            long previous = COUNT.getAndIncrement(entry);
+            if (previous % rateCount != 0) return false;
+        }
+        if (rateTime != null) {
+            long last = entry.lastTime;
+            if (last != 0 && now < last + rateTime.toMillis()) return false;
+            // of the calls racing past the check only the one that moves the time is printed
+            return LAST_TIME.compareAndSet(entry, last, now);
+        }
+        return true;
+    }
+
+    /**
+     * Token bucket of the key, checked as a generic cell rate: the bucket holds up to {@code burst} tokens and gains one
+     * every {@code refill}, a call takes {@code cost} tokens or is refused without taking any
+     *
+     * @return whether the bucket had the tokens
+     */
+    public boolean tryAcquireBucket(long key, long burst, Duration refill, long cost) {
+        Assert.isTrue(burst > 0, "Burst must be positive");
+        Entry entry = entry(key, System.currentTimeMillis());
+        long now = System.nanoTime();
+        long interval = Math.max(1, refill.toNanos());
+        long tolerance = burst * interval;
+        while (true) {
+            // theoretical arrival time, the bucket is full whenever it lies in the past
+            long arrival = entry.arrival;
+            long base = arrival - now > 0 ? arrival : now;
+            long next = base + cost * interval;
+            if (next - now > tolerance) return false;
+            if (ARRIVAL.compareAndSet(entry, arrival, next)) return true;
+        }
+    }
+
+    /**
+     * Gives back {@code cost} tokens taken by {@link #tryAcquireBucket(long, long, Duration, long)} for a call another
+     * policy refused afterwards, a bucket refunded beyond full is simply full
+     */
+    public void refundBucket(long key, Duration refill, long cost) {
+        Entry entry = entry(key, System.currentTimeMillis());
+        ARRIVAL.getAndAdd(entry, -cost * Math.max(1, refill.toNanos()));
+    }
+
+    /**
+     * Sliding window of the key, at most {@code limit} calls within any {@code window}. The window is approximated from
+     * the counts of the current and the previous fixed window, the previous one weighted by its share of the sliding
+     * window, so the state is a single word updated by compare-and-set
+     *
+     * @return whether the call fits the window
+     */
+    public boolean tryAcquireWindow(long key, int limit, Duration window) {
+        Assert.isTrue(limit > 0 && limit <= WINDOW_COUNT_MASK, "Limit must be positive and at most " + WINDOW_COUNT_MASK);
+        long now = System.currentTimeMillis();
+        Entry entry = entry(key, now);
+        long length = Math.max(1, window.toMillis());
+        long index = now / length;
+        double elapsed = (double) (now % length) / length;
+        while (true) {
+            long state = entry.window;
+            long stateIndex = state >>> 44;
+            long previous = state >>> 22 & WINDOW_COUNT_MASK;
+            long current = state & WINDOW_COUNT_MASK;
+            long delta = (index - stateIndex) & WINDOW_INDEX_MASK;
+            if (delta == 1) {
+                previous = current;
+                current = 0;
+            } else if (delta != 0) {
+                previous = 0;
+                current = 0;
+            }
+            if (previous * (1 - elapsed) + current >= limit) return false;
+            long next = (index & WINDOW_INDEX_MASK) << 44 | previous << 22 | (current + 1);
+            if (WINDOW.compareAndSet(entry, state, next)) return true;
+        }
+    }
+
+    /**
+     * Adaptive sample of the key: a call is kept with the sample rate of the key, and the rate follows the kept calls
+     * so that about {@code linesPerSecond} of them are kept per second. It is lowered whenever the kept calls of the
+     * current second reach the target and set again from the calls estimated over the last second by the first call of
+     * the next one, dropped or not. Apart from that call a dropped call only reads the key, the kept ones update it
+     *
+     * @return the sample rate the call was kept at, {@code 0} when it is dropped
+     */
+    public double trySample(long key, double linesPerSecond) {
+        Assert.isTrue(linesPerSecond > 0, "Lines per second must be positive");
+        long now = System.currentTimeMillis();
+        Entry entry = entry(key, now);
+        long index = now / SAMPLE_PERIOD_MILLIS;
+        long state = entry.samplePeriod;
+        // the first call of a second sets the rate, kept or not, so a key that went quiet gets its rate back
+        if (state >>> 32 != index) nextPeriod(entry, state, index, linesPerSecond);
+        double rate = Double.longBitsToDouble(entry.sampleRate);
+        if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) return 0;
+        while (true) {
+            state = entry.samplePeriod;
+            if (state >>> 32 != index) {
+                // the second moved on or the rate was set by a call of the next one meanwhile, counted there instead
+                if (state >>> 32 < index) nextPeriod(entry, state, index, linesPerSecond);
+                else return rate;
+                continue;
+            }
+            long kept = (state & SAMPLE_COUNT_MASK) + 1;
+            if (kept < linesPerSecond) {
+                if (SAMPLE_PERIOD.compareAndSet(entry, state, state + 1)) return rate;
+                continue;
+            }
+            // the target is reached within the second, the calls are estimated from the part of it elapsed and the
+            // count is scaled to the lowered rate, so the estimate of the next check stays unbiased
+            double elapsed = Math.max(0.05, (double) (now % SAMPLE_PERIOD_MILLIS) / SAMPLE_PERIOD_MILLIS);
+            double current = Double.longBitsToDouble(entry.sampleRate);
+            double next = Math.min(current, linesPerSecond * current * elapsed / kept);
+            if (!SAMPLE_PERIOD.compareAndSet(entry, state, index << 32 | (long) (kept * next / current))) continue;
+            entry.sampleRate = Double.doubleToRawLongBits(next);
+            return rate;
+        }
+    }
+
+    /**
+     * Sets the rate from the calls estimated over the last second, only the call that moves the period on does
+     */
+    private static void nextPeriod(Entry entry, long state, long index, double linesPerSecond) {
+        if (!SAMPLE_PERIOD.compareAndSet(entry, state, index << 32)) return;
+        double rate = Double.longBitsToDouble(entry.sampleRate);
+        long kept = state & SAMPLE_COUNT_MASK;
+        double next;
+        if (index - (state >>> 32) > 1) {
+            // no call at all for a whole second
+            next = 1;
+        } else if (kept >= linesPerSecond) {
+            next = linesPerSecond * rate / kept;
+        } else {
+            // fewer calls than the target, a second without a kept one is taken as one to rise fast enough
+            next = Math.min(1, Math.max(2 * rate, linesPerSecond * rate / Math.max(1, kept)));
+        }
+        entry.sampleRate = Double.doubleToRawLongBits(next);
+    }
+
+    /**
+     * State another policy keeps with the key, {@code null} if none
+     *
+     * @param now epoch millis of the call
+     */
+    Object attachment(long key, long now) {
+        return entry(key, now).attachment;
+    }
+
+    /**
+     * Replaces the state another policy keeps with the key if it is still the expected one
+     */
+    boolean attach(long key, Object expected, Object attachment, long now) {
+        return ATTACHMENT.compareAndSet(entry(key, now), expected, attachment);
+    }
+
+    /**
+     * State another policy keeps with the key, {@code null} if none or the key is not held, without inserting the key
+     */
+    Object peekAttachment(long key) {
+        Entry entry = find(key);
+        return entry == null ? null : entry.attachment;
+    }
+
+    /**
+     * Clears the state another policy keeps with the key if it is still the expected one, a key no longer held is not
+     * inserted again
+     */
+    boolean detach(long key, Object expected) {
+        Entry entry = find(key);
+        return entry != null && ATTACHMENT.compareAndSet(entry, expected, null);
+    }
+
+    private Entry find(long key) {
+        int hash = spread(key);
+        for (int i = 0; i < PROBES; i++) {
+            Entry entry = slots.get((hash + i) & mask);
+            if (entry != null && entry.key == key) return entry;
+        }
+        return null;
+    }
+
+    private Entry entry(long key, long now) {
+        int hash = spread(key);
+        while (true) {
+            int free = -1;
+            int victim = -1;
+            Entry victimEntry = null;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (hash + i) & mask;
+                Entry entry = slots.get(slot);
+                if (entry == null) {
+                    if (free < 0) free = slot;
+                } else if (entry.key == key) {
+                    if (entry.lastAccess != now) entry.lastAccess = now;
+                    return entry;
+                } else if (victimEntry == null || entry.lastAccess < victimEntry.lastAccess) {
+                    victim = slot;
+                    victimEntry = entry;
+                }
+            }
+            Entry created = new Entry(key, now);
+            if (free >= 0) {
+                if (slots.compareAndSet(free, null, created)) return inserted(settle(hash, key, created), now);
+            } else if (slots.compareAndSet(victim, victimEntry, created)) {
+                evictions.increment();
+                return inserted(settle(hash, key, created), now);
+            }
+            // the window changed meanwhile, the key may have been inserted by another thread
+        }
+    }
+
+    /**
+     * Threads missing the same key at once may insert it into different slots of the window, e.g. picking different
+     * victims or a slot a sweep freed meanwhile. After inserting, the copy probed first is kept and the later ones are
+     * removed: of two inserters at least one sees the other's copy, so no duplicate outlives both
+     *
+     * @return the copy the key is kept under
+     */
+    private Entry settle(int hash, long key, Entry created) {
+        Entry kept = null;
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (hash + i) & mask;
+            Entry entry = slots.get(slot);
+            if (entry == null || entry.key != key) continue;
+            if (kept == null) kept = entry;
+            else slots.compareAndSet(slot, entry, null);
+        }
+        // evicted by another key meanwhile, the call still counts on its own copy
+        return kept == null ? created : kept;
+    }
+
+    private Entry inserted(Entry entry, long now) {
+        if ((insertions.incrementAndGet() & mask) == 0) sweep(now);
+        return entry;
+    }
+
+    /**
+     * Drops the idle entries, run by one inserting thread once per capacity insertions
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            for (int i = 0; i < slots.length(); i++) {
+                Entry entry = slots.get(i);
+                if (entry != null && now - entry.lastAccess > idleTimeoutMillis && slots.compareAndSet(i, entry, null)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static int spread(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * State of every policy for one key, only the fields of the policies used with the key ever change. The fields
+     * updated through the field updaters are package-private as the updaters require
+     */
+    private static final class Entry {
+        private final long key;
+        volatile long count;
+        /**
+         * Epoch millis of the last call printed under the rate time, {@code 0} before the first
+         */
+        volatile long lastTime;
+        /**
+         * {@link System#nanoTime()} at which the token bucket is full again
+         */
+        volatile long arrival = System.nanoTime();
+        /**
+         * Index of the current fixed window in the top 20 bits, counts of the previous and the current window in 22 bits
+         * each
+         */
+        volatile long window;
+        /**
+         * Index of the current second in the top 32 bits, calls kept by the adaptive sample within it in the low 32
+         */
+        volatile long samplePeriod;
+        /**
+         * Raw bits of the adaptive sample rate, written by whichever kept call adjusts it last
+         */
+        private volatile long sampleRate = FULL_SAMPLE;
+        volatile Object attachment;
+        private volatile long lastAccess;
+
+        Entry(long key, long now) {
+            this.key = key;
+            this.lastAccess = now;
+        }
+    }
+
+}
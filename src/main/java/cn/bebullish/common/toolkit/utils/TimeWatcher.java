@@ -1,21 +1,39 @@
 package cn.bebullish.common.toolkit.utils;
 
+import org.apache.logging.log4j.Level;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
-import org.springframework.util.StopWatch;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import lombok.extern.slf4j.Slf4j;
 
+import static org.apache.logging.log4j.Level.DEBUG;
+import static org.apache.logging.log4j.Level.ERROR;
+import static org.apache.logging.log4j.Level.INFO;
+import static org.apache.logging.log4j.Level.WARN;
+
 
 /**
  * <h3>StopWatch wrapper class</h3>
  *
  * <p>Supports different levels of log printing after a task has been executed for a specified
- * amount of time</p>
+ * amount of time. Every measurement is also counted in a {@link LatencyHistogram} of its task, whose percentiles can
+ * be taken as snapshots or printed as a summary line per task and period. Calls nested on one thread, or run by tasks
+ * passed through {@link #wrap(Runnable)}, form a tree whose outermost call prints one breakdown of every stage with
+ * its total and self time</p>
  *
  * @author Marlon
  * @since 1.0.0
@@ -23,116 +41,185 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TimeWatcher {
 
+    public static final int MAXIMUM_TASKS = 1024;
+    public static final String OTHER = "*";
     private static final String TASK_NAME_NOT_EMPTY = "[TimeWatcher] taskName must not be empty";
 
+    private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService summaryScheduler;
+    private static ScheduledFuture<?> summary;
+
     private TimeWatcher() {
     }
 
     public static <T> T debug(Supplier<T> supplier, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        T t = supplier.get();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.debug(shortSummary(sw));
-        }
-        return t;
+        return watch(supplier, null, taskName, duration, DEBUG);
     }
 
     public static void debug(Runnable runnable, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        runnable.run();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.debug(shortSummary(sw));
-        }
+        watch(null, runnable, taskName, duration, DEBUG);
     }
 
     public static <T> T info(Supplier<T> supplier, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        T t = supplier.get();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.info(shortSummary(sw));
-        }
-        return t;
+        return watch(supplier, null, taskName, duration, INFO);
     }
 
     public static void info(Runnable runnable, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        runnable.run();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.info(shortSummary(sw));
-        }
+        watch(null, runnable, taskName, duration, INFO);
     }
 
     public static <T> T warn(Supplier<T> supplier, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        T t = supplier.get();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.warn(shortSummary(sw));
-        }
-        return t;
+        return watch(supplier, null, taskName, duration, WARN);
     }
 
     public static void warn(Runnable runnable, @NonNull String taskName, @Nullable Duration duration) {
-        Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        runnable.run();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.warn(shortSummary(sw));
-        }
+        watch(null, runnable, taskName, duration, WARN);
     }
 
     public static <T> T error(Supplier<T> supplier, @NonNull String taskName, @Nullable Duration duration) {
+        return watch(supplier, null, taskName, duration, ERROR);
+    }
+
+    public static void error(Runnable runnable, @NonNull String taskName, @Nullable Duration duration) {
+        watch(null, runnable, taskName, duration, ERROR);
+    }
+
+    /**
+     * Runs the task as a stage of the call already running on this thread or of the call that wrapped it, or else as
+     * a root that prints the breakdown of its stages when it or any of them runs over its duration
+     */
+    private static <T> T watch(Supplier<T> supplier, Runnable runnable, String taskName, Duration duration, Level level) {
         Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        T t = supplier.get();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.error(shortSummary(sw));
+        // a level that is off never prints, so the breakdown is not even built
+        long thresholdMillis = !isEnabled(level) ? Long.MAX_VALUE : duration == null ? 0 : duration.toMillis();
+        TimeWatcherSpans.Span span = TimeWatcherSpans.open(taskName);
+        long start = System.nanoTime();
+        try {
+            if (supplier != null) return supplier.get();
+            runnable.run();
+            return null;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            record(taskName, nanos);
+            TimeWatcherSpans.close(span, taskName, nanos, thresholdMillis, level);
         }
-        return t;
     }
 
-    public static void error(Runnable runnable, @NonNull String taskName, @Nullable Duration duration) {
+    /**
+     * The task as a stage of the call running on this thread, whichever thread runs it, or the task itself outside
+     * any call
+     */
+    public static Runnable wrap(@NonNull Runnable runnable) {
+        Assert.notNull(runnable, "[TimeWatcher] runnable must not be null");
+        return TimeWatcherSpans.wrap(runnable);
+    }
+
+    /**
+     * @see #wrap(Runnable)
+     */
+    public static <T> Callable<T> wrap(@NonNull Callable<T> callable) {
+        Assert.notNull(callable, "[TimeWatcher] callable must not be null");
+        return TimeWatcherSpans.wrap(callable);
+    }
+
+    /**
+     * An executor running every task as a stage of the call that submitted it
+     *
+     * @see #wrap(Runnable)
+     */
+    public static Executor wrap(@NonNull Executor executor) {
+        Assert.notNull(executor, "[TimeWatcher] executor must not be null");
+        return command -> executor.execute(TimeWatcherSpans.wrap(command));
+    }
+
+    /**
+     * Counts a measurement of the task, tasks beyond {@link #MAXIMUM_TASKS} are counted under {@link #OTHER}
+     */
+    public static void record(@NonNull String taskName, long nanos) {
         Assert.hasLength(taskName, TASK_NAME_NOT_EMPTY);
-        duration = duration == null ? Duration.ofNanos(0) : duration;
-        StopWatch sw = new StopWatch(taskName);
-        sw.start();
-        runnable.run();
-        sw.stop();
-        if (sw.getTotalTimeMillis() > duration.toMillis()) {
-            log.error(shortSummary(sw));
+        LatencyHistogram histogram = HISTOGRAMS.get(taskName);
+        if (histogram == null) {
+            // checked before inserting, so the bound may be overshot by the number of racing threads
+            histogram = HISTOGRAMS.computeIfAbsent(HISTOGRAMS.size() < MAXIMUM_TASKS ? taskName : OTHER, name -> new LatencyHistogram());
         }
+        histogram.record(nanos);
+    }
+
+    public static Optional<LatencyHistogram.Snapshot> snapshot(String taskName) {
+        LatencyHistogram histogram = taskName == null ? null : HISTOGRAMS.get(taskName);
+        return histogram == null ? Optional.empty() : Optional.of(histogram.snapshot());
+    }
+
+    /**
+     * Snapshots of every task measured, by task name
+     *
+     * @param reset whether the counts are taken out, so the next snapshot only covers the measurements after this one
+     */
+    public static Map<String, LatencyHistogram.Snapshot> snapshot(boolean reset) {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot(reset)));
+        return snapshots;
+    }
+
+    /**
+     * Drops the tasks and their counts
+     */
+    public static void reset() {
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * Prints a line per task measured within each period, with its count, p50, p99, p999 and max, {@code null} to
+     * stop. The summary takes the counts out every period, so snapshots taken meanwhile only cover the current one
+     */
+    public static synchronized void summary(@Nullable Duration period) {
+        if (summary != null) {
+            summary.cancel(false);
+            summary = null;
+        }
+        if (period == null) return;
+        Assert.isTrue(!period.isNegative() && !period.isZero(), "[TimeWatcher] period must be positive");
+        if (summaryScheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "time-watcher-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            summaryScheduler = executor;
+        }
+        long millis = period.toMillis();
+        summary = summaryScheduler.scheduleAtFixedRate(TimeWatcher::printSummary, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isEnabled(Level level) {
+        if (INFO == level) return log.isInfoEnabled();
+        if (DEBUG == level) return log.isDebugEnabled();
+        if (WARN == level) return log.isWarnEnabled();
+        if (ERROR == level) return log.isErrorEnabled();
+        throw new IllegalStateException("Unexpected value: " + level);
+    }
+
+    static void print(Level level, String message) {
+        if (INFO == level) log.info(message);
+        else if (DEBUG == level) log.debug(message);
+        else if (WARN == level) log.warn(message);
+        else if (ERROR == level) log.error(message);
+        else throw new IllegalStateException("Unexpected value: " + level);
+    }
+
+    private static void printSummary() {
+        snapshot(true).forEach((name, snapshot) -> {
+            if (snapshot.getCount() > 0) log.info("[TimeWatcher] [{}] {}", name, snapshot);
+        });
     }
 
-    private static String shortSummary(StopWatch stopWatch) {
-        if (stopWatch.getTotalTimeMillis() == 0) {
-            return String.format("[TimeWatcher] [%s] running time : %dus", stopWatch.getId(), stopWatch.getTotalTimeNanos() / 1000);
+    static String shortSummary(String taskName, long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis == 0) {
+            return String.format("[TimeWatcher] [%s] running time : %dus", taskName, nanos / 1000);
         }
-        return String.format("[TimeWatcher] [%s] running time : %dms", stopWatch.getId(), stopWatch.getTotalTimeMillis());
+        return String.format("[TimeWatcher] [%s] running time : %dms", taskName, millis);
     }
 
 }
@@ -0,0 +1,355 @@
+package cn.bebullish.common.toolkit.utils;
+
+import org.apache.logging.log4j.Level;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h3>Span trees of {@link TimeWatcher}</h3>
+ *
+ * <p>A call made while another one is running on the same thread becomes a stage of it, and a task wrapped with
+ * {@link TimeWatcher#wrap(Runnable)} or its overloads becomes a stage of the call that wrapped it, whichever thread
+ * runs it. The outermost call, the root, prints one breakdown of the whole tree with the total and self time of every
+ * stage, when it runs over its own duration or any stage runs over the duration of that stage, at the most severe
+ * level among them. So a stage is printed as it would be on its own even when the level of the root is off or the
+ * root is fast. The self time only takes out the stages run by the same thread, the ones run by other threads overlap
+ * their parent and are marked with {@code ~}</p>
+ *
+ * <p>Each thread keeps the spans it released in a small free list, so a call only takes one from there. The stages
+ * of a thread are linked without locking, a finished stage tree of another thread is attached under the lock of the
+ * root, and only the roots that wrapped a task take that lock when they finish. A stage finishing after its root is
+ * printed on its own. A thread keeps at most {@link #MAXIMUM_SPANS} stages per tree and nests them at most
+ * {@link #MAXIMUM_DEPTH} deep, the stages beyond are still measured but only counted as omitted in the breakdown, and
+ * printed on their own when they run over their duration</p>
+ *
+ * @author Marlon
+ * @since 1.1.0
+ */
+final class TimeWatcherSpans {
+
+    static final int MAXIMUM_DEPTH = 32;
+    static final int MAXIMUM_SPANS = 256;
+    /**
+     * Stage trees of other threads attached to a root at most
+     */
+    static final int MAXIMUM_ATTACHED = 1024;
+    private static final int MAXIMUM_POOLED = 64;
+
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+
+    private TimeWatcherSpans() {
+    }
+
+    /**
+     * Starts a stage of the call running on this thread or of the wrapping one, or a new root
+     *
+     * @return the span, {@code null} when it is omitted
+     */
+    static Span open(String name) {
+        return CONTEXT.get().open(name);
+    }
+
+    /**
+     * Ends the span opened last on this thread and prints the breakdown once the tree is done
+     *
+     * @param span            the span, {@code null} when it was omitted
+     * @param thresholdMillis running time above which the span is printed, {@link Long#MAX_VALUE} when the level is off
+     */
+    static void close(Span span, String name, long nanos, long thresholdMillis, Level level) {
+        boolean over = TimeUnit.NANOSECONDS.toMillis(nanos) > thresholdMillis;
+        if (span == null) {
+            if (over) TimeWatcher.print(level, TimeWatcher.shortSummary(name, nanos));
+            return;
+        }
+        Context context = CONTEXT.get();
+        span.nanos = nanos;
+        if (over) span.top.level = severer(span.top.level, level);
+        if (span.top != span) {
+            context.current = span.parent;
+            span.parent.childNanos += nanos;
+            return;
+        }
+        context.current = null;
+        String breakdown;
+        if (span.root != span) {
+            synchronized (span.root) {
+                breakdown = context.attach(span);
+            }
+        } else if (span.shared) {
+            synchronized (span) {
+                breakdown = context.closeRoot(span);
+            }
+        } else {
+            breakdown = context.closeRoot(span);
+        }
+        if (breakdown != null) TimeWatcher.print(context.level, breakdown);
+    }
+
+    static Runnable wrap(Runnable runnable) {
+        Propagation propagation = propagation();
+        if (propagation == null) return runnable;
+        return () -> {
+            Context context = CONTEXT.get();
+            Propagation previous = context.enter(propagation);
+            try {
+                runnable.run();
+            } finally {
+                context.exit(previous);
+            }
+        };
+    }
+
+    static <T> Callable<T> wrap(Callable<T> callable) {
+        Propagation propagation = propagation();
+        if (propagation == null) return callable;
+        return () -> {
+            Context context = CONTEXT.get();
+            Propagation previous = context.enter(propagation);
+            try {
+                return callable.call();
+            } finally {
+                context.exit(previous);
+            }
+        };
+    }
+
+    /**
+     * The running span as the parent of a task handed to another thread, {@code null} outside any span
+     */
+    private static Propagation propagation() {
+        Span current = CONTEXT.get().current;
+        if (current == null) return null;
+        // only the thread of the root wraps before any other thread can attach, so the flag is never raised late
+        if (current.top == current.root) current.root.shared = true;
+        return new Propagation(current);
+    }
+
+    private static Level severer(Level current, Level level) {
+        return current == null || level.intLevel() < current.intLevel() ? level : current;
+    }
+
+    private static String breakdown(Span root) {
+        StringBuilder builder = new StringBuilder(TimeWatcher.shortSummary(root.name, root.nanos));
+        append(builder, root, 1, false);
+        int omitted = root.omitted + root.attachedOmitted;
+        if (omitted > 0) builder.append("\n  ").append(omitted).append(" stages omitted");
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, Span span, int indent, boolean remote) {
+        builder.append('\n');
+        for (int i = 0; i < indent; i++) {
+            builder.append("  ");
+        }
+        if (remote) builder.append("~ ");
+        builder.append(span.name).append(" : total ").append(span.nanos / 1000).append("us, self ")
+                .append((span.nanos - span.childNanos) / 1000).append("us");
+        for (Span child = span.firstChild; child != null; child = child.next) {
+            append(builder, child, indent + 1, false);
+        }
+        for (Span child = span.firstRemote; child != null; child = child.next) {
+            append(builder, child, indent + 1, true);
+        }
+    }
+
+    static final class Span {
+        private String name;
+        private long nanos;
+        /**
+         * Time of the stages run by the same thread
+         */
+        private long childNanos;
+        private int depth;
+        private Span parent;
+        /**
+         * Outermost span of this thread in the tree, the root itself or a stage wrapped for another thread
+         */
+        private Span top;
+        private Span root;
+        /**
+         * Generation of the root when the tree was started, a stale one means the root already finished
+         */
+        private long rootGeneration;
+        private Span firstChild;
+        private Span lastChild;
+        /**
+         * Stage trees of other threads, linked under the lock of the root
+         */
+        private Span firstRemote;
+        private Span next;
+
+        // kept by the top span of each thread
+        private int spans;
+        private int omitted;
+        /**
+         * Most severe level of the spans over their duration, {@code null} while none is, the tree is printed at it
+         */
+        private Level level;
+
+        // kept by the root
+        /**
+         * Raised once a task was wrapped, only then other threads attach stages and the root is locked
+         */
+        private boolean shared;
+        private int attached;
+        private int attachedOmitted;
+        /**
+         * Bumped when the root finishes, never reset, so a pooled span reused as a root does not take stale stages
+         */
+        private long generation;
+    }
+
+    private static final class Propagation {
+        private final Span parent;
+        private final Span root;
+        private final long rootGeneration;
+
+        Propagation(Span parent) {
+            this.parent = parent;
+            this.root = parent.root;
+            this.rootGeneration = parent.rootGeneration;
+        }
+    }
+
+    private static final class Context {
+        private Span current;
+        /**
+         * Parent of the spans started by the wrapped task running on this thread
+         */
+        private Propagation propagation;
+        private Span free;
+        private int pooled;
+        /**
+         * Level of the breakdown returned last
+         */
+        private Level level;
+
+        Propagation enter(Propagation propagation) {
+            Propagation previous = this.propagation;
+            this.propagation = propagation;
+            return previous;
+        }
+
+        void exit(Propagation previous) {
+            this.propagation = previous;
+        }
+
+        Span open(String name) {
+            Span parent = current;
+            Propagation propagated = parent == null ? propagation : null;
+            int depth = parent != null ? parent.depth + 1 : propagated != null ? propagated.parent.depth + 1 : 0;
+            if (parent != null && (depth >= MAXIMUM_DEPTH || parent.top.spans >= MAXIMUM_SPANS)) {
+                parent.top.omitted++;
+                return null;
+            }
+            Span span = acquire();
+            span.name = name;
+            span.depth = depth;
+            if (parent != null) {
+                span.parent = parent;
+                span.top = parent.top;
+                span.root = parent.root;
+                span.rootGeneration = parent.rootGeneration;
+                if (parent.lastChild == null) parent.firstChild = span;
+                else parent.lastChild.next = span;
+                parent.lastChild = span;
+            } else if (propagated != null && depth < MAXIMUM_DEPTH) {
+                span.parent = propagated.parent;
+                span.top = span;
+                span.root = propagated.root;
+                span.rootGeneration = propagated.rootGeneration;
+            } else {
+                span.top = span;
+                span.root = span;
+                span.rootGeneration = span.generation;
+            }
+            span.top.spans++;
+            current = span;
+            return span;
+        }
+
+        String closeRoot(Span root) {
+            root.generation++;
+            level = root.level;
+            String breakdown = level != null ? root.firstChild == null && root.firstRemote == null
+                    ? TimeWatcher.shortSummary(root.name, root.nanos) : breakdown(root) : null;
+            release(root);
+            return breakdown;
+        }
+
+        /**
+         * Links the finished stages of this thread into the tree, or returns them to be printed on their own once the
+         * root is gone or holds no more trees, called under the lock of the root
+         */
+        String attach(Span top) {
+            Span root = top.root;
+            if (root.generation == top.rootGeneration) {
+                if (root.attached < MAXIMUM_ATTACHED) {
+                    root.attached++;
+                    root.attachedOmitted += top.omitted;
+                    if (top.level != null) root.level = severer(root.level, top.level);
+                    Span parent = top.parent;
+                    top.next = parent.firstRemote;
+                    parent.firstRemote = top;
+                    return null;
+                }
+                root.attachedOmitted += top.spans + top.omitted;
+            }
+            level = top.level;
+            String breakdown = null;
+            if (level != null) {
+                top.root = top;
+                breakdown = top.firstChild == null && top.firstRemote == null
+                        ? TimeWatcher.shortSummary(top.name, top.nanos) : breakdown(top);
+            }
+            release(top);
+            return breakdown;
+        }
+
+        private Span acquire() {
+            Span span = free;
+            if (span == null) return new Span();
+            free = span.next;
+            span.next = null;
+            pooled--;
+            return span;
+        }
+
+        private void release(Span span) {
+            for (Span child = span.firstChild; child != null; ) {
+                Span next = child.next;
+                release(child);
+                child = next;
+            }
+            for (Span child = span.firstRemote; child != null; ) {
+                Span next = child.next;
+                release(child);
+                child = next;
+            }
+            span.name = null;
+            span.nanos = 0;
+            span.childNanos = 0;
+            span.parent = null;
+            span.top = null;
+            span.root = null;
+            span.firstChild = null;
+            span.lastChild = null;
+            span.firstRemote = null;
+            span.spans = 0;
+            span.omitted = 0;
+            span.level = null;
+            span.shared = false;
+            span.attached = 0;
+            span.attachedOmitted = 0;
+            if (pooled < MAXIMUM_POOLED) {
+                span.next = free;
+                free = span;
+                pooled++;
+            } else {
+                span.next = null;
+            }
+        }
+    }
+
+}
@@ -1,26 +1,73 @@
 package cn.bebullish.common.toolkit;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import cn.bebullish.common.toolkit.utils.DataFormat;
+import cn.bebullish.common.toolkit.utils.JSONAsyncDecoder;
+import cn.bebullish.common.toolkit.utils.JSONBufferPool;
+import cn.bebullish.common.toolkit.utils.JSONCodec;
+import cn.bebullish.common.toolkit.utils.JSONErrors;
+import cn.bebullish.common.toolkit.utils.JSONSerializationCache;
 import cn.bebullish.common.toolkit.utils.JSONUtils;
+import cn.bebullish.common.toolkit.utils.LatencyHistogram;
 import cn.bebullish.common.toolkit.utils.Logs;
+import cn.bebullish.common.toolkit.utils.LogsAsync;
+import cn.bebullish.common.toolkit.utils.LogsHeavyHitters;
+import cn.bebullish.common.toolkit.utils.RateLimitTable;
 import cn.bebullish.common.toolkit.utils.TimeWatcher;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
 @SpringBootApplication
@@ -58,6 +105,484 @@ public class CommonKitTest {
         assertThrows(IllegalArgumentException.class, () -> JSONUtils.read2typeReferenceNonnull(time1, JSONUtils.LIST_MAP_TYPE));
     }
 
+    @Test
+    public void convertTest() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+
+        Map<String, Object> direct = JSONUtils.read2mapNonnull(time);
+        Map<String, Object> text = JSONUtils.read2mapNonnull(json);
+        assertEquals(text, direct);
+        assertEquals(JSONUtils.write2strNonnull(text), JSONUtils.write2strNonnull(direct));
+        assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(time, Time.class)));
+        assertEquals(json, JSONUtils.read2clsNonnull(time, String.class));
+    }
+
+    @SneakyThrows
+    @Test
+    public void bytesTest() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        byte[] bytes = JSONUtils.write2bytesNonnull(time);
+        assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), bytes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(JSONUtils.writeTo(time, out));
+        assertArrayEquals(bytes, out.toByteArray());
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        assertTrue(JSONUtils.writeTo(time, buffer));
+        assertArrayEquals(bytes, buffer.array());
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertFalse(JSONUtils.writeTo(time, small));
+        assertEquals(0, small.position());
+
+        assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(bytes, Time.class)));
+        assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(new ByteArrayInputStream(bytes), Time.class)));
+        assertEquals(json, JSONUtils.read2clsNonnull(new ByteArrayInputStream(bytes), String.class));
+        assertEquals(JSONUtils.read2mapNonnull(json), JSONUtils.read2typeReferenceNonnull(bytes, JSONUtils.MAP_TYPE));
+
+        Path path = Files.createTempFile("common-toolkit", ".json");
+        try {
+            Files.write(path, bytes);
+            assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(path, Time.class)));
+            try (FileChannel channel = FileChannel.open(path)) {
+                assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(channel, Time.class)));
+            }
+        } finally {
+            Files.delete(path);
+        }
+        assertFalse(JSONUtils.read2cls(path, Time.class).isPresent());
+        assertNull(JSONUtils.read2clsNullable("{".getBytes(StandardCharsets.UTF_8), Time.class));
+    }
+
+    @Test
+    public void streamTest() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        String array = "[" + json + ",{\"minteger\":\"x\"}," + json + "]";
+        String lines = json + "\n{\"date\":\n\n" + json + "\n";
+
+        try (Stream<Time> stream = JSONUtils.read2stream(new ByteArrayInputStream(array.getBytes(StandardCharsets.UTF_8)), Time.class)) {
+            List<Time> times = stream.collect(Collectors.toList());
+            assertEquals(2, times.size());
+            assertEquals(json, times.get(1).toString());
+        }
+        try (Stream<Time> stream = JSONUtils.read2linesNullable(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), Time.class)) {
+            List<Time> times = stream.collect(Collectors.toList());
+            assertEquals(3, times.size());
+            assertNull(times.get(1));
+            assertEquals(json, times.get(2).toString());
+        }
+        assertThrows(IllegalArgumentException.class, () -> JSONUtils.read2streamNonnull(new ByteArrayInputStream(array.getBytes(StandardCharsets.UTF_8)), Time.class).count());
+    }
+
+    @Test
+    @SneakyThrows
+    public void parallelLinesTest() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append(json).append('\n');
+            if (i == 500) lines.append("{\"date\":\n\n");
+        }
+        Path path = Files.createTempFile("parallel", ".ndjson");
+        try {
+            Files.write(path, lines.toString().getBytes(StandardCharsets.UTF_8));
+
+            List<Time> ordered = new ArrayList<>();
+            assertEquals(Optional.of(1000L), JSONUtils.read2linesParallel(path, Time.class, ordered::add, true));
+            assertEquals(1000, ordered.size());
+            assertEquals(json, ordered.get(999).toString());
+
+            List<Time> unordered = Collections.synchronizedList(new ArrayList<>());
+            assertEquals(1001L, JSONUtils.read2linesParallelNullable(path, Time.class, unordered::add, false, new ForkJoinPool(4)));
+            assertEquals(1001, unordered.size());
+            assertThrows(IllegalArgumentException.class, () -> JSONUtils.read2linesParallelNonnull(path, Time.class, t -> {
+            }, true));
+        } finally {
+            Files.delete(path);
+        }
+
+        // 有序读取按固定大小分块, 跨多个块时顺序不变
+        Path large = Files.createTempFile("parallel", ".ndjson");
+        try {
+            StringBuilder numbers = new StringBuilder();
+            for (int i = 0; i < 600_000; i++) {
+                numbers.append(i).append('\n');
+            }
+            Files.write(large, numbers.toString().getBytes(StandardCharsets.UTF_8));
+            assertTrue(Files.size(large) > 3 << 20);
+            long[] expected = new long[1];
+            boolean[] inOrder = {true};
+            assertEquals(600_000, JSONUtils.read2linesParallelNonnull(large, Long.class, value -> {
+                if (value != expected[0]++) inOrder[0] = false;
+            }, true, new ForkJoinPool(4)));
+            assertTrue(inOrder[0]);
+        } finally {
+            Files.delete(large);
+        }
+        assertEquals(Optional.empty(), JSONUtils.read2linesParallel(path, Time.class, t -> {
+        }, true));
+        assertNull(JSONUtils.read2linesParallelNullable(path, Time.class, t -> {
+        }, true));
+    }
+
+    @Test
+    public void codecTest() {
+        JSONCodec<Time> codec = JSONUtils.codec(Time.class);
+        assertTrue(codec == JSONUtils.codec(Time.class));
+
+        Time time = new Time();
+        String json = codec.write2strNonnull(time);
+        assertEquals(JSONUtils.write2strNonnull(time), json);
+        assertEquals(json, codec.readNonnull(json).toString());
+        assertEquals(json, codec.readNonnull(codec.write2bytesNonnull(time)).toString());
+        assertFalse(codec.read("{\"minteger\":\"x\"}").isPresent());
+        assertEquals(time.getMInteger(), JSONUtils.codec(new TypeReference<Map<String, Object>>() {
+        }).readNonnull(json).get("minteger"));
+
+        // 缓存满后淘汰最久未使用的类型, 常用的类型保留
+        JSONCodec<Map<Object, Object>> cold = JSONUtils.codec(mapType(String.class, String.class));
+        for (int i = 1; i <= 40; i++) {
+            for (int j = 1; j <= 40; j++) {
+                JSONUtils.codec(mapType(arrayType(i), arrayType(j)));
+                assertTrue(codec == JSONUtils.codec(Time.class));
+            }
+        }
+        assertTrue(cold != JSONUtils.codec(mapType(String.class, String.class)));
+    }
+
+    private static Type arrayType(int dimensions) {
+        return Array.newInstance(String.class, new int[dimensions]).getClass();
+    }
+
+    private static TypeReference<Map<Object, Object>> mapType(Type key, Type value) {
+        ParameterizedType type = new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return new Type[]{key, value};
+            }
+
+            @Override
+            public Type getRawType() {
+                return Map.class;
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return null;
+            }
+        };
+        return new TypeReference<Map<Object, Object>>() {
+            @Override
+            public Type getType() {
+                return type;
+            }
+        };
+    }
+
+    @Test
+    public void binaryFormatTest() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        for (DataFormat format : new DataFormat[]{DataFormat.SMILE, DataFormat.CBOR}) {
+            byte[] bytes = JSONUtils.write2bytesNonnull(time, format);
+            assertTrue(bytes.length < json.length());
+            assertEquals(json, JSONUtils.read2clsNonnull(bytes, Time.class, format).toString());
+            assertEquals(json, JSONUtils.read2clsNonnull(new ByteArrayInputStream(bytes), Time.class, format).toString());
+            assertEquals(json, JSONUtils.read2clsNonnull(bytes, String.class, format));
+            assertEquals(json, JSONUtils.read2clsNonnull(JSONUtils.write2bytesNonnull(json, format), Time.class, format).toString());
+            assertEquals(json, JSONUtils.codec(Time.class, format).readNonnull(bytes).toString());
+            assertFalse(JSONUtils.read2cls(json.getBytes(StandardCharsets.UTF_8), Time.class, format).isPresent());
+        }
+    }
+
+    @Test
+    public void pathTest() {
+        String envelope = "{\"meta\":{\"tags\":[\"a\",\"b\"]},\"order\":{\"id\":42,\"items\":[{\"sku\":\"x\"},{\"sku\":\"y\"}]},\"time\":"
+                + JSONUtils.write2strNonnull(new Time()) + "}";
+
+        assertEquals(42L, JSONUtils.readPathNonnull(envelope, "/order/id", Long.class));
+        assertEquals("y", JSONUtils.readPathNonnull(envelope.getBytes(StandardCharsets.UTF_8), "/order/items/1/sku", String.class));
+        assertEquals(123, JSONUtils.readPathNonnull(envelope, "/time", Time.class).getMInteger());
+        assertFalse(JSONUtils.readPath(envelope, "/order/missing", Long.class).isPresent());
+        assertThrows(IllegalArgumentException.class, () -> JSONUtils.readPathNonnull(envelope, "/order/missing", Long.class));
+        // parsing stops once the path is found, the broken tail is never read
+        assertEquals(42L, JSONUtils.readPathNonnull("{\"order\":{\"id\":42},\"tail\":[[[", "/order/id", Long.class));
+
+        Map<String, JsonNode> values = JSONUtils.readPathsNonnull(envelope, "/order/id", "/meta/tags/0", "/order", "/nothing");
+        assertEquals(3, values.size());
+        assertEquals(42, values.get("/order/id").asInt());
+        assertEquals("a", values.get("/meta/tags/0").asText());
+        assertEquals("x", values.get("/order").at("/items/0/sku").asText());
+    }
+
+    @Test
+    @SneakyThrows
+    public void batchWriteTest() {
+        List<Time> times = Stream.generate(Time::new).limit(5000).collect(Collectors.toList());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5000, JSONUtils.write2arrayNonnull(times, out));
+        assertEquals(JSONUtils.write2strNonnull(times), out.toString(StandardCharsets.UTF_8.name()));
+
+        out.reset();
+        assertEquals(5000, JSONUtils.write2linesNonnull(times.stream(), out, new ForkJoinPool(4)));
+        try (Stream<Time> stream = JSONUtils.read2linesNonnull(new ByteArrayInputStream(out.toByteArray()), Time.class)) {
+            assertEquals(JSONUtils.write2strNonnull(times), JSONUtils.write2strNonnull(stream.collect(Collectors.toList())));
+        }
+
+        List<Object> mixed = Lists.newArrayList(times.get(0), new Broken(), times.get(1));
+        out.reset();
+        assertEquals(2L, JSONUtils.write2array(mixed, out).orElse(-1L));
+        assertEquals(2, JSONUtils.read2typeReferenceNonnull(out.toByteArray(), JSONUtils.LIST_MAP_TYPE).size());
+        out.reset();
+        assertEquals(3L, JSONUtils.write2arrayNullable(mixed, out));
+        assertNull(JSONUtils.read2typeReferenceNonnull(out.toByteArray(), JSONUtils.LIST_MAP_TYPE).get(1));
+        assertThrows(IllegalArgumentException.class, () -> JSONUtils.write2arrayNonnull(mixed, new ByteArrayOutputStream()));
+
+        List<Object> absent = null;
+        assertFalse(JSONUtils.write2array(absent, out).isPresent());
+        assertFalse(JSONUtils.write2lines(absent, out).isPresent());
+        assertNull(JSONUtils.write2arrayNullable(absent, out));
+        assertNull(JSONUtils.write2linesNullable(absent, out));
+    }
+
+    public static class Broken {
+        public String getValue() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void bufferPoolTest() {
+        JSONBufferPool pool = JSONUtils.bufferPool();
+        assertEquals(JSONBufferPool.Strategy.POOLED, pool.getStrategy());
+        pool.clear();
+
+        String json = JSONUtils.write2strNonnull(new Time());
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) {
+                futures.add(executor.submit(() -> JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(json, Time.class))));
+            }
+            for (Future<String> future : futures) {
+                assertEquals(json, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.getHits() > pool.getMisses() * 10);
+        assertTrue(pool.getSize() <= pool.getCapacity() * 8);
+        assertEquals(json, JSONUtils.OBJECT_MAPPER.copy().writeValueAsString(JSONUtils.read2clsNonnull(json, Time.class)));
+
+        pool.setStrategy(JSONBufferPool.Strategy.THREAD_LOCAL);
+        try {
+            long hits = pool.getHits();
+            assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(json, Time.class)));
+            assertEquals(hits, pool.getHits());
+        } finally {
+            pool.setStrategy(JSONBufferPool.Strategy.POOLED);
+        }
+    }
+
+    @Test
+    public void asyncDecoderTest() {
+        List<Time> times = Stream.generate(Time::new).limit(1000).collect(Collectors.toList());
+        byte[] bytes = JSONUtils.write2strNonnull(times).getBytes(StandardCharsets.UTF_8);
+        List<Time> decoded = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        boolean[] completed = {false};
+        JSONAsyncDecoder<Time> decoder = JSONUtils.asyncDecoder(Time.class, new JSONAsyncDecoder.Subscriber<Time>() {
+            @Override
+            public void onNext(Time value) {
+                decoded.add(value);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.add(error);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        }, 16);
+
+        decoder.request(10);
+        int pauses = 0;
+        for (int position = 0; position < bytes.length; position += 37) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.min(37, bytes.length - position));
+            chunk.put(bytes, position, chunk.capacity()).flip();
+            if (!decoder.feed(chunk)) {
+                pauses++;
+                decoder.request(100);
+            }
+        }
+        decoder.complete();
+        decoder.request(Long.MAX_VALUE);
+        assertTrue(completed[0]);
+        assertTrue(pauses > 0);
+        assertTrue(errors.isEmpty());
+        assertEquals(JSONUtils.write2strNonnull(times), JSONUtils.write2strNonnull(decoded));
+
+        List<List<Integer>> lists = new ArrayList<>();
+        JSONAsyncDecoder<List<Integer>> listDecoder = JSONUtils.asyncDecoder(new TypeReference<List<Integer>>() {
+        }, new JSONAsyncDecoder.Subscriber<List<Integer>>() {
+            @Override
+            public void onNext(List<Integer> value) {
+                lists.add(value);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.add(error);
+            }
+        });
+        listDecoder.request(Long.MAX_VALUE);
+        listDecoder.feed(ByteBuffer.wrap("[1,2] [3] {\"broken\"".getBytes(StandardCharsets.UTF_8)));
+        listDecoder.complete();
+        assertEquals(Lists.newArrayList(Lists.newArrayList(1, 2), Lists.newArrayList(3)), lists);
+        assertEquals(1, errors.size());
+
+        // 队列满时停止解析, 剩余输入留在解码器中直到有需求, 未解析完前不接受新的输入
+        List<Integer> numbers = new ArrayList<>();
+        boolean[] drained = {false};
+        JSONAsyncDecoder<Integer> numberDecoder = JSONUtils.asyncDecoder(Integer.class, new JSONAsyncDecoder.Subscriber<Integer>() {
+            @Override
+            public void onNext(Integer value) {
+                numbers.add(value);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.add(error);
+            }
+
+            @Override
+            public void onComplete() {
+                drained[0] = true;
+            }
+        }, 4);
+        String array = IntStream.range(0, 20).boxed().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+        assertFalse(numberDecoder.feed(ByteBuffer.wrap(array.getBytes(StandardCharsets.UTF_8))));
+        assertFalse(numberDecoder.isReady());
+        assertThrows(IllegalStateException.class, () -> numberDecoder.feed(new byte[]{' '}, 0, 1));
+        numberDecoder.request(3);
+        assertEquals(Lists.newArrayList(0, 1, 2), numbers);
+        assertFalse(numberDecoder.isReady());
+        numberDecoder.request(Long.MAX_VALUE);
+        assertEquals(20, numbers.size());
+        assertTrue(numberDecoder.isReady());
+        numberDecoder.complete();
+        assertTrue(drained[0]);
+        assertEquals(1, errors.size());
+    }
+
+    @SneakyThrows
+    @Test
+    public void serializationCacheTest() {
+        JSONSerializationCache previous = JSONUtils.serializationCache();
+        JSONSerializationCache cache = new JSONSerializationCache(32, false);
+        JSONUtils.serializationCache(cache);
+        try {
+            Time time = new Time();
+            String json = JSONUtils.write2strNonnull(time);
+            assertEquals(json, JSONUtils.write2strCachedNonnull(time));
+            assertTrue(JSONUtils.write2strCachedNonnull(time) == JSONUtils.write2strCachedNonnull(time));
+            assertArrayEquals(JSONUtils.write2bytesNonnull(time), JSONUtils.write2bytesCached(time).orElse(null));
+            assertEquals(1, cache.getMisses());
+            assertEquals(3, cache.getHits());
+
+            assertEquals(json, JSONUtils.write2strCachedNonnull("time:1", time));
+            assertEquals(json, JSONUtils.write2strCachedNonnull("time:1", new Time()));
+            cache.invalidateKey("time:1");
+            assertNull(JSONUtils.write2strCachedNullable(null, time));
+
+            for (int i = 0; i < 1000; i++) {
+                JSONUtils.write2strCachedNonnull(new Time());
+            }
+            assertTrue(cache.getSize() <= 32);
+            assertTrue(cache.getEvictions() > 0);
+
+            // concurrent misses on one object keep a single identity entry, shared by every caller
+            JSONSerializationCache shared = new JSONSerializationCache();
+            JSONUtils.serializationCache(shared);
+            List<Time> times = Stream.generate(Time::new).limit(4).collect(Collectors.toList());
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return times.stream().map(JSONUtils::write2strCachedNonnull).collect(Collectors.toList());
+                }));
+            }
+            start.countDown();
+            List<String> first = results.get(0).get();
+            for (Future<List<String>> result : results) {
+                List<String> texts = result.get();
+                for (int i = 0; i < times.size(); i++) {
+                    assertTrue(first.get(i) == texts.get(i), "同一对象应共用一个缓存条目");
+                }
+            }
+            executor.shutdown();
+            assertEquals(times.size(), shared.getSize());
+        } finally {
+            JSONUtils.serializationCache(previous);
+        }
+    }
+
+    @Test
+    public void errorsTest() {
+        JSONErrors errors = JSONUtils.errors();
+        errors.reset();
+        errors.setSampleSize(2);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertFalse(JSONUtils.read2cls("{\"mInteger\":" + i, Time.class).isPresent());
+            }
+            assertNull(JSONUtils.read2typeReferenceNullable("[{", JSONUtils.LIST_MAP_TYPE));
+            assertThrows(IllegalArgumentException.class, () -> JSONUtils.codec(Time.class).readNonnull("{"));
+
+            assertEquals(102, errors.getCount());
+            assertEquals(100, errors.getCount("read2cls"));
+            JSONErrors.Stats stats = errors.snapshot().get(0);
+            assertEquals("read2cls", stats.getOperation());
+            assertEquals(Time.class.getName(), stats.getTarget());
+            assertEquals(99, stats.getSuppressed());
+
+            List<JSONErrors.Sample> samples = errors.samples();
+            assertEquals(2, samples.size());
+            assertEquals("read2typeReferenceNullable", samples.get(0).getOperation());
+            assertEquals("readNonnull", samples.get(1).getOperation());
+        } finally {
+            errors.setSampleSize(0);
+            errors.reset();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void generatedCodecTest() {
+        assertTrue(JSONUtils.OBJECT_MAPPER.getSerializerProviderInstance().findValueSerializer(GeneratedTime.class).getClass().getName().contains("_JSONModule"));
+
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        GeneratedTime generated = JSONUtils.read2clsNonnull(json, GeneratedTime.class);
+        String generatedJson = JSONUtils.write2strNonnull(generated);
+        assertEquals(JSONUtils.OBJECT_MAPPER.readTree(json), JSONUtils.OBJECT_MAPPER.readTree(generatedJson));
+        assertEquals(json, JSONUtils.write2strNonnull(JSONUtils.read2clsNonnull(generatedJson, Time.class)));
+
+        GeneratedTime empty = JSONUtils.read2clsNonnull("{\"minteger\":null,\"unknown\":[1,{\"a\":2}],\"mlong\":\"7\"}", GeneratedTime.class);
+        assertNull(empty.getMInteger());
+        assertEquals(Long.valueOf(7), empty.getMLong());
+    }
+
     @Test
     public void watchTest() {
         watchWithRunnable();
@@ -77,6 +602,97 @@ public class CommonKitTest {
         TimeWatcher.error(this::task, "task", Duration.ofMillis(1));
     }
 
+    @Test
+    public void watchHistogramTest() {
+        String taskName = "watchHistogramTest";
+        for (long micros = 1; micros <= 1000; micros++) {
+            TimeWatcher.record(taskName, micros * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = TimeWatcher.snapshot(taskName).orElseThrow(() -> new AssertionError("没有记录"));
+        log.info("[watchHistogramTest] {}", snapshot);
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_500, snapshot.getMean(), 0.001);
+        // log-linear buckets keep every percentile within about 3% above the exact value
+        assertTrue(snapshot.getP50() >= 500_000 && snapshot.getP50() <= 500_000 * 1.04, "p50 : " + snapshot.getP50());
+        assertTrue(snapshot.getP99() >= 990_000 && snapshot.getP99() <= 1_000_000, "p99 : " + snapshot.getP99());
+        assertEquals(1_000_000, snapshot.getPercentile(100));
+
+        TimeWatcher.info(() -> 1, taskName, Duration.ofHours(1));
+        assertEquals(1001, TimeWatcher.snapshot(false).get(taskName).getCount());
+        assertEquals(1001, TimeWatcher.snapshot(true).get(taskName).getCount());
+        assertEquals(0, TimeWatcher.snapshot(taskName).map(LatencyHistogram.Snapshot::getCount).orElse(-1L));
+        assertFalse(TimeWatcher.snapshot("absent").isPresent());
+        assertThrows(IllegalArgumentException.class, () -> TimeWatcher.record("", 1));
+    }
+
+    @SneakyThrows
+    @Test
+    public void watchSpanTest() {
+        Runnable task = this::task;
+        assertSame(task, TimeWatcher.wrap(task), "没有运行中的阶段时不应包装");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Executor executor = TimeWatcher.wrap(executorService);
+        List<Future<Integer>> submitted = new ArrayList<>();
+        ListAppender<ILoggingEvent> appender = capture(TimeWatcher.class);
+        int result;
+        try {
+            result = TimeWatcher.info(() -> {
+                TimeWatcher.info(this::task, "watchSpanTest.query", null);
+                TimeWatcher.debug(() -> TimeWatcher.info(this::task, "watchSpanTest.render", null), "watchSpanTest.view", null);
+                submitted.add(executorService.submit(TimeWatcher.wrap(() -> TimeWatcher.info(() -> 1, "watchSpanTest.fetch", null))));
+                return CompletableFuture.supplyAsync(() -> TimeWatcher.info(() -> 1, "watchSpanTest.fetch", null), executor).join();
+            }, "watchSpanTest", Duration.ofMillis(-1));
+            // a stage still running when its root finishes is printed on its own
+            assertEquals(2, result + submitted.get(0).get());
+        } finally {
+            release(TimeWatcher.class, appender);
+        }
+        executorService.shutdown();
+        String breakdown = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                .filter(message -> message.startsWith("[TimeWatcher] [watchSpanTest] "))
+                .findFirst().orElseThrow(() -> new AssertionError("没有打印调用树"));
+        assertTrue(breakdown.contains("\n  watchSpanTest : total "), breakdown);
+        assertTrue(breakdown.contains("\n    watchSpanTest.query : total "), breakdown);
+        assertTrue(breakdown.contains("\n    watchSpanTest.view : total "), breakdown);
+        assertTrue(breakdown.contains("\n      watchSpanTest.render : total "), breakdown);
+        assertTrue(breakdown.contains("\n    ~ watchSpanTest.fetch : total "), breakdown);
+        assertEquals(2, TimeWatcher.snapshot("watchSpanTest.fetch").map(LatencyHistogram.Snapshot::getCount).orElse(0L));
+        assertEquals(1, TimeWatcher.snapshot("watchSpanTest.render").map(LatencyHistogram.Snapshot::getCount).orElse(0L));
+
+        // a failing stage still ends its span, the next call on this thread is a root again
+        assertThrows(IllegalStateException.class, () -> TimeWatcher.info(() -> TimeWatcher.info(() -> {
+            throw new IllegalStateException("阶段失败");
+        }, "watchSpanTest.failure", null), "watchSpanTest", null));
+        assertSame(task, TimeWatcher.wrap(task), "阶段结束后不应包装");
+    }
+
+    @Test
+    public void watchSpanThresholdTest() {
+        ListAppender<ILoggingEvent> appender = capture(TimeWatcher.class);
+        try {
+            // 根节点未超时, 但超过自身阈值的阶段仍以它的级别打印整棵树
+            TimeWatcher.info(() -> {
+                TimeWatcher.warn(() -> 1, "watchSpanThresholdTest.fast", Duration.ofHours(1));
+                TimeWatcher.error(this::task, "watchSpanThresholdTest.slow", Duration.ofMillis(1));
+            }, "watchSpanThresholdTest", Duration.ofHours(1));
+            assertEquals(1, appender.list.size());
+            ILoggingEvent event = appender.list.get(0);
+            assertEquals(Level.ERROR, event.getLevel());
+            assertTrue(event.getFormattedMessage().startsWith("[TimeWatcher] [watchSpanThresholdTest] "));
+            assertTrue(event.getFormattedMessage().contains("\n    watchSpanThresholdTest.slow : total "));
+
+            // 没有任何超时的阶段时不打印
+            appender.list.clear();
+            TimeWatcher.info(() -> TimeWatcher.error(this::task, "watchSpanThresholdTest.slow", Duration.ofHours(1)),
+                    "watchSpanThresholdTest", Duration.ofHours(1));
+            assertEquals(0, appender.list.size());
+        } finally {
+            release(TimeWatcher.class, appender);
+        }
+    }
+
     @SneakyThrows
     private void task() {
         Thread.sleep(5);
@@ -104,4 +720,280 @@ public class CommonKitTest {
             Logs.rateTime(Duration.ofMillis(1000)).info("测试 rateTime");
         }
     }
+
+    @Test
+    public void logRateKeyTest() {
+        RateLimitTable previous = Logs.rateLimitTable();
+        RateLimitTable table = new RateLimitTable();
+        Logs.rateLimitTable(table);
+        try {
+            for (int i = 0; i < 10; i++) {
+                Logs.rateKey(Logs.RateKey.TEMPLATE).rateCount(5).info("测试 rateKey {}", i);
+            }
+            assertEquals(1, table.getSize());
+            for (int i = 0; i < 10; i++) {
+                Logs.rateCount(5).info("测试 rateKey {} {}", i, "固定");
+            }
+            assertEquals(11, table.getSize());
+            for (int i = 0; i < 10; i++) {
+                Logs.rateCount(5).rateArguments(1).info("测试 rateKey {} {}", i, "固定");
+            }
+            assertEquals(12, table.getSize());
+        } finally {
+            Logs.rateLimitTable(previous);
+        }
+    }
+
+    @Test
+    public void logBudgetTest() {
+        for (int i = 0; i < 20; i++) {
+            Logs.rateBucket(5, Duration.ofSeconds(1)).info("测试 rateBucket {}", i);
+            Logs.rateWindow(5, Duration.ofSeconds(1)).rateKey(Logs.RateKey.TEMPLATE).info("测试 rateWindow {}", i);
+        }
+
+        // the lines printed are counted by an asynchronous stage, on a table of their own
+        RateLimitTable previousTable = Logs.rateLimitTable();
+        LogsAsync previousAsync = Logs.async();
+        LogsAsync printed = new LogsAsync();
+        Logs.rateLimitTable(new RateLimitTable());
+        Logs.async(printed);
+        Logs.defaultLabelBudget(Logs.Budget.lines(5, Duration.ofHours(1)));
+        Logs.labelBudget("quiet", Logs.Budget.lines(60, Duration.ofHours(1)));
+        Logs.globalBudget(Logs.Budget.bytes(64 * 1024, Duration.ofSeconds(1)));
+        try {
+            for (int i = 0; i < 100; i++) {
+                Logs.labels("quiet", "JsonProcessingException").error("测试 budget {}", i);
+            }
+            printed.flush();
+            assertEquals(5, printed.getEmitted(), "泛滥的标签应被限制在预算内");
+            for (int i = 0; i < 55; i++) {
+                Logs.labels("quiet").info("测试 budget 不受其他标签影响 {}", i);
+            }
+            printed.flush();
+            assertEquals(60, printed.getEmitted(), "被拒绝的调用不应消耗其他标签的预算");
+        } finally {
+            Logs.defaultLabelBudget(null);
+            Logs.labelBudget("quiet", null);
+            Logs.globalBudget(null);
+            Logs.async(previousAsync);
+            Logs.rateLimitTable(previousTable);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void logDedupTest() {
+        ListAppender<ILoggingEvent> appender = capture(Logs.class);
+        RateLimitTable table = Logs.rateLimitTable();
+        try {
+            for (int i = 0; i < 100; i++) {
+                Logs.labels("JsonProcessingException").dedup(Duration.ofHours(1)).error("测试 dedup {}", "相同参数");
+            }
+            assertEquals(1, appender.list.size(), "窗口内只打印第一次");
+            Logs.flush();
+            assertEquals(2, appender.list.size(), "flush 关闭窗口并打印汇总");
+            assertTrue(appender.list.get(1).getFormattedMessage().matches(".*测试 dedup 相同参数 \\(suppressed 99 identical messages between "
+                    + "\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} and \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\)"),
+                    appender.list.get(1).getFormattedMessage());
+
+            // 异常仍作为异常打印, 汇总的数值插在它前面
+            appender.list.clear();
+            for (int i = 0; i < 3; i++) {
+                Logs.dedup(Duration.ofHours(1)).error("测试 dedup 异常 {}", "id-1", new IllegalStateException("boom"));
+            }
+            Logs.flush();
+            assertEquals(2, appender.list.size());
+            ILoggingEvent summary = appender.list.get(1);
+            assertTrue(summary.getFormattedMessage().contains("测试 dedup 异常 id-1 (suppressed 2 identical messages between "),
+                    summary.getFormattedMessage());
+            assertFalse(summary.getFormattedMessage().contains("boom"), summary.getFormattedMessage());
+            assertEquals("boom", summary.getThrowableProxy().getMessage());
+
+            Logs.rateLimitTable(new RateLimitTable(16, Duration.ofHours(1)));
+            appender.list.clear();
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < 8; i++) {
+                    Logs.dedup(Duration.ofHours(1)).warn("测试 dedup 窗口 " + i);
+                }
+            }
+            assertEquals(8, appender.list.size());
+            Logs.flush();
+            assertEquals(16, appender.list.size());
+            assertEquals(8, appender.list.stream().filter(event -> event.getFormattedMessage().contains("suppressed 1 identical")).count());
+
+            // 窗口数不超过表的容量, 被淘汰的 key 的窗口先关闭, 关闭时也不会把 key 写回表中
+            appender.list.clear();
+            for (int round = 0; round < 2; round++) {
+                for (int i = 0; i < 40; i++) {
+                    Logs.dedup(Duration.ofHours(1)).warn("测试 dedup 容量 " + i);
+                }
+            }
+            long evictions = Logs.rateLimitTable().getEvictions();
+            Logs.flush();
+            assertEquals(evictions, Logs.rateLimitTable().getEvictions(), "flush 不应再插入被淘汰的 key");
+            long summaries = appender.list.stream().filter(event -> event.getFormattedMessage().contains("suppressed")).count();
+            long suppressed = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                    .filter(message -> message.contains("suppressed"))
+                    .mapToLong(message -> Long.parseLong(message.replaceAll(".*suppressed (\\d+) identical.*", "$1"))).sum();
+            assertEquals(80, appender.list.size() - summaries + suppressed, "每次调用要么打印要么计入汇总");
+        } finally {
+            Logs.rateLimitTable(table);
+            release(Logs.class, appender);
+        }
+    }
+
+    @Test
+    public void logAsyncTest() {
+        LogsAsync async = new LogsAsync(16, 4, LogsAsync.Overflow.dropNewest());
+        Logs.async(async);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                Logs.info("测试 async {}", i);
+            }
+            Logs.flush();
+            assertEquals(1000, async.getEmitted() + async.getDropped());
+            assertEquals(0, async.getLag());
+
+            // 打印线程上恢复调用方的 MDC 和线程名
+            ListAppender<ILoggingEvent> appender = capture(Logs.class);
+            MDC.put("traceId", "测试 trace");
+            try {
+                Logs.info("测试 async MDC");
+                Logs.flush();
+            } finally {
+                MDC.remove("traceId");
+                release(Logs.class, appender);
+            }
+            ILoggingEvent event = appender.list.get(0);
+            assertEquals("logs-async", event.getThreadName());
+            assertEquals("测试 trace", event.getMDCPropertyMap().get("traceId"));
+            assertEquals(Thread.currentThread().getName(), event.getMDCPropertyMap().get(LogsAsync.CALLER_THREAD));
+        } finally {
+            Logs.async(null);
+        }
+        assertTrue(async.isClosed());
+        Logs.info("测试 async 关闭后同步打印");
+    }
+
+    @Test
+    public void logSampleTest() {
+        RateLimitTable table = new RateLimitTable();
+        int kept = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (table.trySample(1, 10) > 0) kept++;
+        }
+        assertTrue(kept < 1000);
+
+        ListAppender<ILoggingEvent> appender = capture(Logs.class);
+        try {
+            // 固定比例采样, 打印的行带上采样率
+            for (int i = 0; i < 2000; i++) {
+                Logs.sample(0.01).info("测试 sample {}", i);
+            }
+            List<String> sampled = appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+            assertTrue(sampled.size() > 0 && sampled.size() < 150, String.valueOf(sampled.size()));
+            assertTrue(sampled.stream().allMatch(message -> message.matches("\\[sample-0\\.01] 测试 sample \\d+")), sampled.toString());
+
+            // 自适应采样, 每秒约 5 行, 采样率降到 1 以下后打印的行带上当时的采样率
+            appender.list.clear();
+            for (int i = 0; i < 1000; i++) {
+                Logs.labels("sample").sampleAdaptive(5).rateKey(Logs.RateKey.LABELS).info("测试 sampleAdaptive {}", i);
+            }
+            List<String> adaptive = appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+            assertTrue(adaptive.size() >= 5 && adaptive.size() < 150, String.valueOf(adaptive.size()));
+            assertTrue(adaptive.stream().allMatch(message -> message.matches("(\\[sample-[0-9.E-]+] )?\\[sample] 测试 sampleAdaptive \\d+")),
+                    adaptive.toString());
+            assertTrue(adaptive.stream().anyMatch(message -> message.startsWith("[sample-")), adaptive.toString());
+        } finally {
+            release(Logs.class, appender);
+        }
+    }
+
+    @Test
+    public void logHeavyHittersTest() {
+        LogsHeavyHitters heavyHitters = new LogsHeavyHitters(256, 4, 3);
+        Logs.heavyHitters(heavyHitters);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                Logs.labels("noisy").rateCount(100).info("测试 heavyHitters 最多 {}", i);
+                if (i % 2 == 0) Logs.labels("noisy").rateCount(100).info("测试 heavyHitters 其次 {}", i);
+                if (i % 100 == 0) Logs.rateCount(100).info("测试 heavyHitters 偶尔 {}", i);
+            }
+        } finally {
+            Logs.heavyHitters(null);
+        }
+        List<LogsHeavyHitters.Site> top = heavyHitters.top();
+        assertEquals("测试 heavyHitters 最多 {}", top.get(0).getFormat());
+        assertEquals("noisy", top.get(0).getLabels()[0]);
+        assertTrue(top.get(0).getCount() >= 1000 && top.get(0).getCount() <= 1000 + top.get(0).getError());
+        assertEquals("测试 heavyHitters 其次 {}", top.get(1).getFormat());
+        assertEquals(1510, heavyHitters.getTotal());
+    }
+
+    @Test
+    public void logJsonTest() {
+        ListAppender<ILoggingEvent> appender = capture(Logs.class);
+        Logs.output(Logs.Output.JSON);
+        try {
+            Logs.labels("label 1", "label 2").rateCount(1).error("测试 json {} {} {}", 1.5, "哈哈", LocalDateTime.of(2020, 1, 2, 3, 4, 5));
+            Logs.sample(0.5).warn("测试 json 采样 {}", Collections.singletonMap("key", "value"));
+            Logs.warn("测试 json 对象 {}", Collections.singletonMap("key", "value"));
+            Logs.info("测试 json 异常 {}", "参数", new IllegalStateException("异常"));
+            Logs.info("测试 json 序列化失败 {}", new Unserializable());
+        } finally {
+            Logs.output(Logs.Output.TEXT);
+            release(Logs.class, appender);
+        }
+        List<JsonNode> lines = appender.list.stream().map(ILoggingEvent::getFormattedMessage).map(line -> JSONUtils.read2clsNonnull(line, JsonNode.class)).collect(Collectors.toList());
+        assertTrue(lines.size() == 4 || lines.size() == 5);
+        JsonNode first = lines.get(0);
+        assertEquals("ERROR", first.get("level").asText());
+        assertEquals("label 2", first.get("labels").get(1).asText());
+        assertEquals(1, first.get("rate").get("count").asInt());
+        assertEquals("测试 json 1.5 哈哈 2020-01-02T03:04:05", first.get("message").asText());
+        assertEquals(1.5, first.get("arguments").get(0).asDouble());
+        assertEquals("哈哈", first.get("arguments").get(1).asText());
+        assertEquals("2020-01-02 03:04:05", first.get("arguments").get(2).asText());
+        JsonNode object = lines.get(lines.size() - 3);
+        assertEquals("测试 json 对象 {}", object.get("format").asText());
+        assertEquals("value", object.get("arguments").get(0).get("key").asText());
+        JsonNode exception = lines.get(lines.size() - 2);
+        assertEquals("参数", exception.get("arguments").get(0).asText());
+        assertEquals(1, exception.get("arguments").size());
+        assertEquals("java.lang.IllegalStateException: 异常", exception.get("exception").asText());
+        JsonNode fallback = lines.get(lines.size() - 1);
+        assertEquals("不可序列化", fallback.get("arguments").get(0).asText());
+    }
+
+    /**
+     * 序列化到一半失败的参数
+     */
+    public static class Unserializable {
+
+        public String getFirst() {
+            return "first";
+        }
+
+        public String getSecond() {
+            throw new IllegalStateException("序列化失败");
+        }
+
+        @Override
+        public String toString() {
+            return "不可序列化";
+        }
+    }
+
+    private static ListAppender<ILoggingEvent> capture(Class<?> type) {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        ((Logger) LoggerFactory.getLogger(type)).addAppender(appender);
+        return appender;
+    }
+
+    private static void release(Class<?> type, ListAppender<ILoggingEvent> appender) {
+        ((Logger) LoggerFactory.getLogger(type)).detachAppender(appender);
+        appender.stop();
+    }
+
 }
@@ -0,0 +1,178 @@
+package cn.bebullish.common.toolkit;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.DateSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import cn.bebullish.common.toolkit.utils.JSONUtils;
+import lombok.Data;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.fasterxml.jackson.databind.deser.std.DateDeserializers.DateDeserializer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Compares the date and time handling of {@link JSONUtils} with the formatter based configuration it replaced, results
+ * must be identical, the timings are only logged
+ */
+@Slf4j
+public class DateTimeBenchmarkTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    @SneakyThrows
+    public void dateTimeBenchmark() {
+        ObjectMapper formatterMapper = formatterMapper();
+        ObjectMapper fastMapper = JSONUtils.OBJECT_MAPPER;
+
+        List<Timestamps> values = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            values.add(new Timestamps(random));
+        }
+        List<String> jsons = new ArrayList<>();
+        for (Timestamps value : values) {
+            String json = formatterMapper.writeValueAsString(value);
+            assertEquals(json, fastMapper.writeValueAsString(value));
+            assertEquals(formatterMapper.readValue(json, Timestamps.class), fastMapper.readValue(json, Timestamps.class));
+            jsons.add(json);
+        }
+
+        long formatterWrite = measure(() -> formatterMapper.writeValueAsString(values.get(random.nextInt(values.size()))));
+        long fastWrite = measure(() -> fastMapper.writeValueAsString(values.get(random.nextInt(values.size()))));
+        long formatterRead = measure(() -> formatterMapper.readValue(jsons.get(random.nextInt(jsons.size())), Timestamps.class));
+        long fastRead = measure(() -> fastMapper.readValue(jsons.get(random.nextInt(jsons.size())), Timestamps.class));
+        log.info("[write] formatter {} ns/op, fast {} ns/op", formatterWrite, fastWrite);
+        log.info("[read] formatter {} ns/op, fast {} ns/op", formatterRead, fastRead);
+    }
+
+    @Test
+    @SneakyThrows
+    public void fastPathForProperties() {
+        ObjectMapper mapper = JSONUtils.OBJECT_MAPPER;
+        JsonSerializer<Object> serializer = mapper.getSerializerProviderInstance().findValueSerializer(Timestamps.class);
+        DefaultDeserializationContext context = ((DefaultDeserializationContext) mapper.getDeserializationContext())
+                .createInstance(mapper.getDeserializationConfig(), null, null);
+        BeanDeserializerBase deserializer = (BeanDeserializerBase) context.findRootValueDeserializer(mapper.constructType(Timestamps.class));
+        // Date is not final, so its serializer is only resolved while writing
+        for (String name : new String[]{"start", "day", "time"}) {
+            assertEquals("FastSerializer", propertySerializer(serializer, name).getClass().getSimpleName(), name);
+        }
+        for (String name : new String[]{"created", "start", "day", "time"}) {
+            assertEquals("FastDeserializer", deserializer.findProperty(name).getValueDeserializer().getClass().getSimpleName(), name);
+        }
+
+        // a property level @JsonFormat still goes to the Jackson serializer
+        Formatted formatted = new Formatted();
+        formatted.setDay(LocalDate.of(2020, 1, 2));
+        formatted.setStart(LocalDateTime.of(2020, 1, 2, 3, 4, 5));
+        String json = mapper.writeValueAsString(formatted);
+        assertEquals("{\"day\":\"2020/01/02\",\"start\":\"2020-01-02 03:04:05\"}", json);
+        assertEquals(formatted, mapper.readValue(json, Formatted.class));
+        serializer = mapper.getSerializerProviderInstance().findValueSerializer(Formatted.class);
+        assertNotEquals("FastSerializer", propertySerializer(serializer, "day").getClass().getSimpleName());
+        assertEquals("FastSerializer", propertySerializer(serializer, "start").getClass().getSimpleName());
+    }
+
+    private static JsonSerializer<?> propertySerializer(JsonSerializer<Object> serializer, String name) {
+        Iterator<PropertyWriter> properties = serializer.properties();
+        while (properties.hasNext()) {
+            PropertyWriter property = properties.next();
+            if (property.getName().equals(name)) return ((BeanPropertyWriter) property).getSerializer();
+        }
+        throw new AssertionError("没有属性 " + name);
+    }
+
+    @SneakyThrows
+    private static long measure(Callable<?> task) {
+        for (int i = 0; i < ITERATIONS / 4; i++) {
+            task.call();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.call();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static ObjectMapper formatterMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        JavaTimeModule javaTimeModule = new JavaTimeModule();
+        javaTimeModule.addSerializer(Date.class, new DateSerializer(false, new SimpleDateFormat(JSONUtils.DATE_TIME_PATTERN)));
+        javaTimeModule.addDeserializer(Date.class, new DateDeserializer(new DateDeserializer(), new SimpleDateFormat(JSONUtils.DATE_TIME_PATTERN), JSONUtils.DATE_TIME_PATTERN));
+        javaTimeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(DateTimeFormatter.ofPattern(JSONUtils.DATE_TIME_PATTERN)));
+        javaTimeModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(DateTimeFormatter.ofPattern(JSONUtils.DATE_TIME_PATTERN)));
+        javaTimeModule.addSerializer(LocalDate.class, new LocalDateSerializer(DateTimeFormatter.ofPattern(JSONUtils.DATE_PATTERN)));
+        javaTimeModule.addDeserializer(LocalDate.class, new LocalDateDeserializer(DateTimeFormatter.ofPattern(JSONUtils.DATE_PATTERN)));
+        javaTimeModule.addSerializer(LocalTime.class, new LocalTimeSerializer(DateTimeFormatter.ofPattern(JSONUtils.TIME_PATTERN)));
+        javaTimeModule.addDeserializer(LocalTime.class, new LocalTimeDeserializer(DateTimeFormatter.ofPattern(JSONUtils.TIME_PATTERN)));
+        mapper.registerModule(javaTimeModule);
+        return mapper;
+    }
+
+    @Data
+    @JsonPropertyOrder({"day", "start"})
+    public static class Formatted {
+
+        @JsonFormat(pattern = "yyyy/MM/dd")
+        private LocalDate day;
+        private LocalDateTime start;
+    }
+
+    @Data
+    public static class Timestamps {
+
+        private Date created;
+        private Date updated;
+        private LocalDateTime start;
+        private LocalDateTime end;
+        private LocalDate day;
+        private LocalTime time;
+
+        public Timestamps() {
+        }
+
+        Timestamps(Random random) {
+            long millis = System.currentTimeMillis() - random.nextInt(Integer.MAX_VALUE) * 100L;
+            this.created = new Date(millis / 1000 * 1000);
+            this.updated = new Date(millis / 1000 * 1000 + random.nextInt(86_400) * 1000L);
+            this.start = LocalDateTime.of(1970 + random.nextInt(100), 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            this.end = start.plusSeconds(random.nextInt(1_000_000));
+            this.day = start.toLocalDate();
+            this.time = end.toLocalTime();
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package cn.bebullish.common.toolkit;
+
+import org.junit.jupiter.api.Test;
+
+import cn.bebullish.common.toolkit.utils.JSONCodec;
+import cn.bebullish.common.toolkit.utils.JSONUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enables the accelerator, which registers Afterburner on {@link JSONUtils#OBJECT_MAPPER} for the rest of the JVM, so
+ * the build runs this class in its own test task instead of next to the other tests
+ */
+public class JSONAcceleratorTest {
+
+    @Test
+    public void enableAccelerator() {
+        Time time = new Time();
+        String json = JSONUtils.write2strNonnull(time);
+        JSONCodec<Time> codec = JSONUtils.codec(Time.class);
+
+        assertTrue(JSONUtils.enableAccelerator());
+        assertTrue(JSONUtils.OBJECT_MAPPER.getRegisteredModuleIds().contains("com.fasterxml.jackson.module.afterburner.AfterburnerModule"));
+        assertTrue(JSONUtils.enableAccelerator());
+        // the codecs built before are dropped, so the new ones see the module
+        assertTrue(codec != JSONUtils.codec(Time.class));
+        assertEquals(json, JSONUtils.write2strNonnull(time));
+        assertEquals(json, JSONUtils.read2clsNonnull(json, Time.class).toString());
+    }
+
+}
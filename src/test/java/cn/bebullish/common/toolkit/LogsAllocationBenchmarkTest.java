@@ -0,0 +1,82 @@
+package cn.bebullish.common.toolkit;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import cn.bebullish.common.toolkit.utils.Logs;
+import lombok.extern.slf4j.Slf4j;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the bytes allocated per {@link Logs} call that prints nothing, with the allocation counter of the calling
+ * thread: a call below the enabled level and a call suppressed by a policy must not allocate
+ */
+@Slf4j
+public class LogsAllocationBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 1_000_000;
+    /**
+     * Slack for whatever the thread allocates outside the calls while measuring, far below a byte per call
+     */
+    private static final double MAXIMUM_BYTES_PER_CALL = 0.05;
+
+    @Test
+    public void disabledLevelAllocatesNothing() {
+        if (log.isTraceEnabled()) {
+            log.info("trace is enabled, skipped");
+            return;
+        }
+        String user = "user";
+        Integer id = 42;
+        measure("disabled, no argument", () -> Logs.trace("disabled"));
+        measure("disabled, one argument", () -> Logs.trace("disabled {}", user));
+        measure("disabled, two arguments", () -> Logs.trace("disabled {} {}", user, id));
+        Logs.LogsBuilder builder = Logs.labels("benchmark").rateCount(10);
+        measure("disabled, builder", () -> builder.trace("disabled {} {}", user, id));
+    }
+
+    @Test
+    public void suppressedCallAllocatesNothing() {
+        if (!log.isInfoEnabled()) {
+            log.warn("info is disabled, skipped");
+            return;
+        }
+        String user = "user";
+        Integer id = 42;
+        Logs.LogsBuilder rateCount = Logs.labels("benchmark").rateCount(Integer.MAX_VALUE);
+        measure("suppressed, rateCount", () -> rateCount.info("suppressed {} {}", user, id));
+        Logs.LogsBuilder rateTime = Logs.labels("benchmark").rateTime(Duration.ofHours(1));
+        measure("suppressed, rateTime", () -> rateTime.info("suppressed {}", user));
+        Logs.LogsBuilder sample = Logs.labels("benchmark").sample(1e-9);
+        measure("suppressed, sample", () -> sample.info("suppressed {} {}", user, id));
+        Logs.LogsBuilder sampleAdaptive = Logs.labels("benchmark").sampleAdaptive(1);
+        measure("suppressed, sampleAdaptive", () -> sampleAdaptive.info("suppressed {} {}", user, id));
+        Logs.LogsBuilder dedup = Logs.labels("benchmark").dedup(Duration.ofHours(1));
+        measure("suppressed, dedup", () -> dedup.info("suppressed {} {}", user, id));
+        Logs.flush();
+    }
+
+    private static void measure(String name, Runnable call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            call.run();
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+        double perCall = (double) bytes / CALLS;
+        log.info("{}: {} B/call, {} ns/call, {} ms", name, perCall, (double) nanos / CALLS, TimeUnit.NANOSECONDS.toMillis(nanos));
+        assertTrue(perCall < MAXIMUM_BYTES_PER_CALL, name + " allocates " + perCall + " B/call");
+    }
+
+}
@@ -0,0 +1,150 @@
+package cn.bebullish.common.toolkit;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.apache.logging.log4j.Level;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import cn.bebullish.common.toolkit.utils.Logs;
+import cn.bebullish.common.toolkit.utils.LogsAsync;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes from 64 threads into one small {@link LogsAsync} under every overflow policy, each call must be either
+ * emitted or dropped, nothing is dropped while the callers wait for room, and every emitted line carries the
+ * {@link MDC} and the name of the thread that made it
+ */
+@Slf4j
+public class LogsAsyncStressTest {
+
+    private static final int THREADS = 64;
+    private static final int CALLS = 20_000;
+    private static final int CAPACITY = 1024;
+
+    @Test
+    @SneakyThrows
+    public void blockLosesNothing() {
+        Counter counter = stress(LogsAsync.Overflow.block());
+        assertEquals((long) THREADS * CALLS, counter.emitted);
+    }
+
+    @Test
+    @SneakyThrows
+    public void dropNewestAccountsForEveryCall() {
+        stress(LogsAsync.Overflow.dropNewest());
+    }
+
+    @Test
+    @SneakyThrows
+    public void dropBelowAccountsForEveryCall() {
+        stress(LogsAsync.Overflow.dropBelow(Level.WARN));
+    }
+
+    @Test
+    @SneakyThrows
+    public void sampleAccountsForEveryCall() {
+        stress(LogsAsync.Overflow.sample(4));
+    }
+
+    private static Counter stress(LogsAsync.Overflow overflow) throws Exception {
+        Logger logger = (Logger) LoggerFactory.getLogger(Logs.class);
+        Counter counter = new Counter();
+        counter.start();
+        logger.addAppender(counter);
+        // the lines only go to the counter, not to the console
+        logger.setAdditive(false);
+        LogsAsync async = new LogsAsync(CAPACITY, LogsAsync.DEFAULT_BATCH_SIZE, overflow);
+        Logs.async(async);
+        try {
+            long nanos = run(thread -> {
+                MDC.put("worker", String.valueOf(thread));
+                MDC.put("thread", Thread.currentThread().getName());
+                try {
+                    for (int i = 0; i < CALLS; i++) {
+                        Logs.info("stress {} {}", thread, i);
+                    }
+                } finally {
+                    MDC.clear();
+                }
+            });
+            Logs.flush();
+            long published = (long) THREADS * CALLS;
+            assertEquals(published, async.getEmitted() + async.getDropped(), overflow.toString());
+            assertEquals(async.getEmitted(), counter.emitted, overflow.toString());
+            assertEquals(0, counter.mismatched, overflow.toString());
+            assertTrue(async.getDropped() <= async.getOverflowed(), overflow.toString());
+            log.info("{}: {} calls on {} threads in {} ms, {} dropped, max lag {}", overflow, published, THREADS,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), async.getDropped(), async.getMaxLag());
+            return counter;
+        } finally {
+            Logs.async(null);
+            logger.setAdditive(true);
+            logger.detachAppender(counter);
+            counter.stop();
+        }
+    }
+
+    private static long run(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    /**
+     * Counts the lines and the ones printed with another caller's context, appended by the draining thread only
+     */
+    private static final class Counter extends AppenderBase<ILoggingEvent> {
+        private long emitted;
+        private long mismatched;
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            emitted++;
+            Map<String, String> context = event.getMDCPropertyMap();
+            Object[] arguments = event.getArgumentArray();
+            if (!String.valueOf(arguments[0]).equals(context.get("worker"))
+                    || !String.valueOf(context.get("thread")).equals(context.get(LogsAsync.CALLER_THREAD))) {
+                mismatched++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package cn.bebullish.common.toolkit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import cn.bebullish.common.toolkit.utils.RateLimitTable;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers one {@link RateLimitTable} from 64 threads, the number of accepted calls must be exact while the keys fit
+ * and the table must neither hold a key twice nor stop evicting when they do not
+ */
+@Slf4j
+public class RateLimitTableStressTest {
+
+    private static final int THREADS = 64;
+    private static final int CALLS = 20_000;
+
+    @Test
+    @SneakyThrows
+    public void rateCountIsExact() {
+        RateLimitTable table = new RateLimitTable(1024, Duration.ofMinutes(10));
+        int keys = 16;
+        int rateCount = 7;
+        AtomicLongArray accepted = new AtomicLongArray(keys);
+        long nanos = run(thread -> {
+            for (int i = 0; i < CALLS; i++) {
+                int key = (thread + i) % keys;
+                if (table.tryAcquire(key, rateCount, null)) accepted.incrementAndGet(key);
+            }
+        });
+        long callsPerKey = (long) THREADS * CALLS / keys;
+        for (int key = 0; key < keys; key++) {
+            assertEquals((callsPerKey + rateCount - 1) / rateCount, accepted.get(key));
+        }
+        assertEquals(0, table.getEvictions());
+        log.info("rateCount: {} calls on {} threads in {} ms", THREADS * CALLS, THREADS, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    @Test
+    @SneakyThrows
+    public void rateTimeAcceptsOncePerPeriod() {
+        RateLimitTable table = new RateLimitTable(1024, Duration.ofMinutes(10));
+        int keys = 16;
+        AtomicLongArray accepted = new AtomicLongArray(keys);
+        run(thread -> {
+            for (int i = 0; i < CALLS; i++) {
+                int key = (thread + i) % keys;
+                if (table.tryAcquire(key, 0, Duration.ofHours(1))) accepted.incrementAndGet(key);
+            }
+        });
+        for (int key = 0; key < keys; key++) {
+            assertEquals(1, accepted.get(key));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void bucketAndWindowAcceptExactly() {
+        RateLimitTable table = new RateLimitTable(1024, Duration.ofMinutes(10));
+        int keys = 16;
+        AtomicLongArray bucket = new AtomicLongArray(keys);
+        AtomicLongArray window = new AtomicLongArray(keys);
+        run(thread -> {
+            for (int i = 0; i < CALLS; i++) {
+                int key = (thread + i) % keys;
+                if (table.tryAcquireBucket(key, 100, Duration.ofHours(1), 1)) bucket.incrementAndGet(key);
+                if (table.tryAcquireWindow(keys + key, 100, Duration.ofHours(1))) window.incrementAndGet(key);
+            }
+        });
+        for (int key = 0; key < keys; key++) {
+            assertEquals(100, bucket.get(key));
+            assertEquals(100, window.get(key));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void capacityIsBounded() {
+        RateLimitTable table = new RateLimitTable(256, Duration.ofMinutes(10));
+        long nanos = run(thread -> {
+            for (int i = 0; i < CALLS; i++) {
+                table.tryAcquire((long) thread << 32 | i, 5, Duration.ofSeconds(1));
+            }
+        });
+        assertTrue(table.getEvictions() >= (long) THREADS * CALLS - table.getCapacity());
+        log.info("capacity: {} distinct keys on {} threads in {} ms, {} evictions", THREADS * CALLS, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(nanos), table.getEvictions());
+    }
+
+    @Test
+    @SneakyThrows
+    public void keysAreNeverDuplicated() {
+        // a single probe window shared by more keys than it holds, so nearly every miss races an eviction
+        RateLimitTable table = new RateLimitTable(16, Duration.ofMinutes(10));
+        int keys = 24;
+        for (int round = 0; round < 20; round++) {
+            run(thread -> {
+                for (int i = 0; i < CALLS / 10; i++) {
+                    table.tryAcquire((thread * 7 + i) % keys, 3, null);
+                }
+            });
+            List<Long> held = heldKeys(table);
+            assertEquals(new HashSet<>(held).size(), held.size(), "duplicate keys " + held);
+        }
+        assertTrue(table.getEvictions() > 0);
+    }
+
+    /**
+     * Keys of the occupied slots, read through reflection as the table does not expose its entries
+     */
+    private static List<Long> heldKeys(RateLimitTable table) throws ReflectiveOperationException {
+        Field slotsField = RateLimitTable.class.getDeclaredField("slots");
+        slotsField.setAccessible(true);
+        AtomicReferenceArray<?> slots = (AtomicReferenceArray<?>) slotsField.get(table);
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Object entry = slots.get(i);
+            if (entry == null) continue;
+            Field keyField = entry.getClass().getDeclaredField("key");
+            keyField.setAccessible(true);
+            keys.add(keyField.getLong(entry));
+        }
+        return keys;
+    }
+
+    private static long run(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+}